@@ -1,9 +1,8 @@
 package ru.mipt.optimization.algorithms;
 
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.optimizationProcedure.StopCriteria;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
+import ru.mipt.optimization.supportive.DoubleVector;
 
 import java.util.Objects;
 import java.util.function.Function;
@@ -26,7 +25,7 @@ public interface Algorithm{
      * @return the new value of the argument x on the next iteration of the Algorithm
      * @throws IllegalArgumentException if x is not in the domain of the given cost function
      */
-    Vector<Real> conductOneIteration (Vector<Real> x, CostFunction function, VaryingParams varParams)
+    DoubleVector conductOneIteration (DoubleVector x, CostFunction function, VaryingParams varParams)
             throws IllegalArgumentException;
 
     /**
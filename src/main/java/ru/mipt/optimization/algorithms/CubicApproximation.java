@@ -1,13 +1,10 @@
 package ru.mipt.optimization.algorithms;
 
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.DenseVector;
-import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.optimizationProcedure.OptimizationProcedure;
 import ru.mipt.optimization.entity.optimizationProcedure.StopCriteria;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
+import ru.mipt.optimization.supportive.DoubleVector;
 
-import javax.measure.unit.SI;
 import java.util.function.Function;
 
 /**
@@ -20,32 +17,32 @@ public class CubicApproximation extends PureAlgorithm {
 
 
     @Override
-    protected Vector<Real> getAlgorithmStep(Vector<Real> x, CostFunction function, VaryingParams vp) {
+    protected DoubleVector getAlgorithmStep(DoubleVector x, CostFunction function, VaryingParams vp) {
         vp.i++;
-        Vector<Real> x1;
-        Real a;
-        Real b;
+        DoubleVector x1;
+        double a;
+        double b;
         double fDerX = function.getPartialDerivative(x,0);
         double i = (vp.i > 3) ? (vp.i/2) : 1;
         double curStep = h/i;
         if (fDerX<0) {
-            x1 = x.plus(DenseVector.valueOf(Real.valueOf(curStep)));
+            x1 = x.plus(curStep);
             if (function.apply(x1) == null) x1 = function.getNearestDomainPoint(x1,x);
             a = x.get(0);
             b = x1.get(0);
         } else {
-            x1 = x.minus(DenseVector.valueOf(Real.valueOf(curStep)));
+            x1 = x.plus(-curStep);
             if (function.apply(x1) == null) x1 = function.getNearestDomainPoint(x1,x);
             b = x.get(0);
             a = x1.get(0);
         }
 
-        Vector<Real> prevXPolinom = x1;
+        DoubleVector prevXPolinom = x1;
 
         if (function.getPartialDerivative(x1,0)*fDerX >= 0) return x1;
-        while (b.minus(a).doubleValue()>stopCriteria.getError()) {
+        while (b - a>stopCriteria.getError()) {
             double polinomMin = calculatePolinomMin(a,b,function);
-            Vector<Real> xPol = DenseVector.valueOf(Real.valueOf(polinomMin));
+            DoubleVector xPol = DoubleVector.valueOf(polinomMin);
             if (function.apply(xPol) == null) xPol =
                     function.getNearestDomainPoint(xPol,prevXPolinom);
             double fDerPol = function.getPartialDerivative(xPol,0);
@@ -55,7 +52,7 @@ public class CubicApproximation extends PureAlgorithm {
             prevXPolinom = xPol;
         }
         vp.done = true;
-        Vector<Real> res = DenseVector.valueOf(b.plus(a).divide(2));
+        DoubleVector res = DoubleVector.valueOf((b + a)/2);
         if (function.apply(res) == null) res =
                 function.getNearestDomainPoint(res,prevXPolinom);
         return res;
@@ -112,24 +109,24 @@ public class CubicApproximation extends PureAlgorithm {
     }
 
     // TODO: 21.10.2017 привести к одному из типов
-    private double calculatePolinomMin(Real a, Real b, CostFunction f) {
-        return a.doubleValue() + (calculateGamma(a,b,f)*(b.minus(a).doubleValue()));
+    private double calculatePolinomMin(double a, double b, CostFunction f) {
+        return a + (calculateGamma(a,b,f)*(b - a));
     }
 
-    private double calculateOmega(Real a, Real b, CostFunction function) {
-        double fafb = function.apply(DenseVector.valueOf(a))*function.apply(DenseVector.valueOf(b));
+    private double calculateOmega(double a, double b, CostFunction function) {
+        double fafb = function.apply(DoubleVector.valueOf(a))*function.apply(DoubleVector.valueOf(b));
         double z = calculateZ(a,b,function);
         return Math.sqrt(z*z - fafb);
     }
 
-    private double calculateZ(Real a, Real b, CostFunction f) {
-        return 3*(f.apply(DenseVector.valueOf(a)) - f.apply(DenseVector.valueOf(b)))/b.minus(a).doubleValue()
-                + f.getPartialDerivative(DenseVector.valueOf(a),0) + f.getPartialDerivative(DenseVector.valueOf(b),0);
+    private double calculateZ(double a, double b, CostFunction f) {
+        return 3*(f.apply(DoubleVector.valueOf(a)) - f.apply(DoubleVector.valueOf(b)))/(b - a)
+                + f.getPartialDerivative(DoubleVector.valueOf(a),0) + f.getPartialDerivative(DoubleVector.valueOf(b),0);
     }
 
-    private double calculateGamma(Real a, Real b, CostFunction f) {
-        return (calculateZ(a,b,f)+calculateOmega(a,b,f)-f.apply(DenseVector.valueOf(a)))
-                /(f.getPartialDerivative(DenseVector.valueOf(b),0) - f.getPartialDerivative(DenseVector.valueOf(a),0) + (2*calculateOmega(a,b,f)));
+    private double calculateGamma(double a, double b, CostFunction f) {
+        return (calculateZ(a,b,f)+calculateOmega(a,b,f)-f.apply(DoubleVector.valueOf(a)))
+                /(f.getPartialDerivative(DoubleVector.valueOf(b),0) - f.getPartialDerivative(DoubleVector.valueOf(a),0) + (2*calculateOmega(a,b,f)));
     }
 
 
@@ -1,9 +1,7 @@
 package ru.mipt.optimization.algorithms;
 
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.DenseVector;
-import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
+import ru.mipt.optimization.supportive.DoubleVector;
 
 import java.util.function.Function;
 
@@ -18,13 +16,9 @@ public class GradientDescent extends PureAlgorithm {
     private double step;
 
     @Override
-    protected Vector<Real> getAlgorithmStep(Vector<Real> x, CostFunction function, VaryingParams vp) {
-        Vector<Real> g = function.getGradient(x);
-
-        Real[] gradReal = new Real[x.getDimension()];
-        for (int i = 0; i < x.getDimension(); i++ )
-            gradReal[i] = g.get(i).times(Real.valueOf(-step));
-        return DenseVector.valueOf(gradReal);
+    protected DoubleVector getAlgorithmStep(DoubleVector x, CostFunction function, VaryingParams vp) {
+        DoubleVector g = vp.getGradient(x, function);
+        return g.times(-step);
     }
 
     @Override
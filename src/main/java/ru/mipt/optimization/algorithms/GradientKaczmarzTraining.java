@@ -1,14 +1,12 @@
 package ru.mipt.optimization.algorithms;
 
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.DenseVector;
-import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.Optimizator;
 import ru.mipt.optimization.entity.inOut.Config;
 import ru.mipt.optimization.entity.optimizationProcedure.OptimizationProcedure;
 import ru.mipt.optimization.entity.optimizationProcedure.StopCriteria;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.UndeterminateCostFunc;
+import ru.mipt.optimization.supportive.DoubleVector;
 import ru.mipt.optimization.supportive.MathHelp;
 import ru.mipt.optimization.supportive.Tuple;
 
@@ -49,13 +47,11 @@ public class GradientKaczmarzTraining extends HybridAlgorithm {
         return "MAX_SUBGRAD_NUM = " + MAX_SUBGRAD_NUM;
     }
 
-    // TODO: 27.10.2017 remove from field
-    private VaryingParams currentVarParams; // parameters to conduct current iteration 
+    // parameters to conduct current iteration are passed through, so that one instance can serve parallel procedures
     @Override
-    protected Vector<Real> getAlgorithmStep(Vector<Real> x, CostFunction function, VaryingParams varParams) {
-        currentVarParams = varParams;
-        return currentVarParams.anew ? outerLoop(x, function)
-                : innerLoop(x, function, currentVarParams.curDirection, currentVarParams.prevGradient);
+    protected DoubleVector getAlgorithmStep(DoubleVector x, CostFunction function, VaryingParams varParams) {
+        return varParams.anew ? outerLoop(x, function, varParams)
+                : innerLoop(x, function, varParams);
     }
 
     @Override
@@ -174,55 +170,45 @@ public class GradientKaczmarzTraining extends HybridAlgorithm {
         return new M1Stopping(cs);
     }
 
-    private Vector<Real> outerLoop(Vector<Real> x, CostFunction function) {
-        Vector<Real> nulVec = MathHelp.getTwinVector(x.getDimension(), Real.ZERO);
-        currentVarParams.curDirection = DenseVector.valueOf(nulVec);
-        currentVarParams.prevGradient = DenseVector.valueOf(nulVec);
-        return innerLoop(x, function, currentVarParams.curDirection, currentVarParams.prevGradient);
+    private DoubleVector outerLoop(DoubleVector x, CostFunction function, VaryingParams currentVarParams) {
+        DoubleVector nulVec = MathHelp.getTwinVector(x.getDimension(), 0);
+        currentVarParams.curDirection = nulVec;
+        currentVarParams.prevGradient = nulVec;
+        return innerLoop(x, function, currentVarParams);
     }
 
-    private Vector<Real> innerLoop(Vector<Real> x, CostFunction function, Vector<Real> si, Vector<Real> gPrev) {
-        Vector<Real> curGrad = function.getGradient(x);
+    private DoubleVector innerLoop(DoubleVector x, CostFunction function, VaryingParams currentVarParams) {
+        DoubleVector curGrad = currentVarParams.getGradient(x, function);
         if (isZero(curGrad)) {
             currentVarParams.done = true;
             return x;
         }
-        if (currentVarParams.curDirection.times(curGrad).isLargerThan(Real.ZERO)) {
-            List<Vector<Real>> subgradients = function.getSubGradients(x, currentVarParams.ek.peek());
-            Collections.sort(subgradients, getSubgradComparator());
+        if (currentVarParams.curDirection.times(curGrad) > 0) {
+            List<DoubleVector> subgradients = function.getRankedSubGradients(x, currentVarParams.ek.peek(),
+                    currentVarParams.curDirection);
             if (!subgradients.isEmpty()) curGrad = subgradients.get(0); //nonetheless required condition may be not fulfilled
         }
 
-        Vector<Real> newDirection = kaczmarz.getAlgorithmStep(currentVarParams.curDirection, curGrad, getPi(curGrad), Real.ONE)
+        DoubleVector newDirection = kaczmarz.getAlgorithmStep(currentVarParams.curDirection, curGrad, getPi(curGrad, currentVarParams.prevGradient), 1)
                 .plus(currentVarParams.curDirection);
         currentVarParams.curDirection = newDirection;
-        Double gamma = Math.abs(getOptimizedGamma(x,function));
+        Double gamma = Math.abs(getOptimizedGamma(x,function, currentVarParams));
         
         if (gamma == 0.0) gamma = 0.05;// TODO: 28.10.2017 fake 
         currentVarParams.prevGradient = curGrad;
-        return newDirection.times(Real.valueOf(-gamma*step));
+        return newDirection.times(-gamma*step);
     }
 
     //returns training vector pi
-    private Vector<Real> getPi(Vector<Real> curGrad) {
-        return (curGrad.times(currentVarParams.prevGradient).isLessThan(Real.ZERO))
-                ? curGrad.minus(kaczmarz.getAlgorithmStep(curGrad, currentVarParams.prevGradient, Real.ZERO))
+    private DoubleVector getPi(DoubleVector curGrad, DoubleVector prevGradient) {
+        return (curGrad.times(prevGradient) < 0)
+                ? curGrad.minus(kaczmarz.getAlgorithmStep(curGrad, prevGradient, 0))
                 : curGrad;
     }
 
-    private Comparator<Vector<Real>> getSubgradComparator() {
-        return new Comparator<Vector<Real>>() {
-            @Override
-            public int compare(Vector<Real> o1, Vector<Real> o2) {
-                return Double.compare(currentVarParams.curDirection.times(o1).doubleValue()
-                        ,currentVarParams.curDirection.times(o2).doubleValue());
-            }
-        };
-    }
-
     // TODO: 21.10.2017 not works 
     //returns optimized bu gradient gamma for correction training on the current step
-    private Double getOptimizedGamma(Vector<Real> x, CostFunction func) {
+    private Double getOptimizedGamma(DoubleVector x, CostFunction func, VaryingParams currentVarParams) {
         /*Function<Vector<Real>, Double> f = new Function<Vector<Real>, Double>() {
             @Override
             public Double apply(Vector<Real> realVector) {
@@ -244,11 +230,11 @@ public class GradientKaczmarzTraining extends HybridAlgorithm {
         return /*res.x.get(0).doubleValue()*/ fakeGamma;
     }
 
-    private boolean isZero(Vector<Real> curGrad) {
-        boolean res = curGrad.equals(MathHelp.getTwinVector(curGrad.getDimension(), Real.ZERO));
+    private boolean isZero(DoubleVector curGrad) {
+        boolean res = curGrad.equals(MathHelp.getTwinVector(curGrad.getDimension(), 0));
         if (!res)
             for (int i = 0; i< curGrad.getDimension(); i++)
-                if (Math.abs(curGrad.get(i).doubleValue())>0.00001) return res;
+                if (Math.abs(curGrad.get(i))>0.00001) return res;
         return true;
     }
 
@@ -294,7 +280,7 @@ public class GradientKaczmarzTraining extends HybridAlgorithm {
             Double epsK = optimizationProcedure.getAlgoVarParams().ek.peek();
             Double mK = optimizationProcedure.getAlgoVarParams().mk.peek();
             optimizationProcedure.getAlgoVarParams().curSum += 1 /(optimizationProcedure.getAlgoVarParams().prevGradient
-                    .times(optimizationProcedure.getAlgoVarParams().prevGradient).doubleValue());
+                    .times(optimizationProcedure.getAlgoVarParams().prevGradient));
             if (1/Math.sqrt(optimizationProcedure.getAlgoVarParams().curSum) < epsK
                     || (optimizationProcedure.getAlgoVarParams().i - optimizationProcedure.getAlgoVarParams().qk > mK) ) {
                 optimizationProcedure.getAlgoVarParams().anew = true;
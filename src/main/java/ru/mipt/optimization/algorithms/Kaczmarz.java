@@ -3,6 +3,7 @@ package ru.mipt.optimization.algorithms;
 import org.jscience.mathematics.number.Real;
 import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
+import ru.mipt.optimization.supportive.DoubleVector;
 import ru.mipt.optimization.supportive.MathHelp;
 
 import java.util.function.Function;
@@ -10,9 +11,9 @@ import java.util.function.Function;
 /**
  * Represents an identification algorithm for solving linear equation systems.
  * Had been adopted for optimization problem
- * (see {@link ru.mipt.optimization.algorithms.Kaczmarz#getAlgorithmStep(Vector, CostFunction)})
+ * (see {@link ru.mipt.optimization.algorithms.Kaczmarz#getAlgorithmStep(DoubleVector, CostFunction, VaryingParams)})
  * but can be used for identification problem as well
- * (see {@link ru.mipt.optimization.algorithms.Kaczmarz#getAlgorithmStep(Vector, Vector, Real)}).
+ * (see {@link ru.mipt.optimization.algorithms.Kaczmarz#getAlgorithmStep(DoubleVector, DoubleVector, double)}).
  * Created by Inna on 18.10.2017.
  */
 public class Kaczmarz extends PureAlgorithm{
@@ -29,13 +30,24 @@ public class Kaczmarz extends PureAlgorithm{
      * @return the vector-step of the algorithm to add to the current approximation of the vector x
      * @throws IllegalArgumentException if dimension of ai doesn't coincide x's dimension
      */
-    public Vector<Real> getAlgorithmStep(Vector<Real> x, Vector<Real> ai, Real bi) {
+    public DoubleVector getAlgorithmStep(DoubleVector x, DoubleVector ai, double bi) {
         if (x.getDimension() != ai.getDimension())
             throw new IllegalArgumentException("Dimension of ai doesn't coincide x's dimension");
-        Double norm = MathHelp.norm(ai);
-        Real normReal = Real.valueOf(norm);
-        return ai.times(bi.minus(ai.times(x)).divide(normReal.times(normReal)))
-                .times(Real.valueOf(relaxationParameter));
+        double norm = MathHelp.norm(ai);
+        return ai.times((bi - ai.times(x))/(norm*norm) * relaxationParameter);
+    }
+
+    /**
+     * Adapter of the {@link Kaczmarz#getAlgorithmStep(DoubleVector, DoubleVector, double)}
+     * for the identification problem given in jscience terms.
+     * @param x current approximation of the vector
+     * @param ai the ith row of complex-valued matrix A. Note: dimension of the ai must coincide x's dimension.
+     * @param bi the constant terms vector
+     * @return the vector-step of the algorithm to add to the current approximation of the vector x
+     * @throws IllegalArgumentException if dimension of ai doesn't coincide x's dimension
+     */
+    public Vector<Real> getAlgorithmStep(Vector<Real> x, Vector<Real> ai, Real bi) {
+        return getAlgorithmStep(DoubleVector.valueOf(x), DoubleVector.valueOf(ai), bi.doubleValue()).toRealVector();
     }
 
     /**
@@ -49,14 +61,11 @@ public class Kaczmarz extends PureAlgorithm{
      * @return the vector-step of the algorithm to add to the current approximation of the vector x
      * @throws IllegalArgumentException if dimension of ai or pi doesn't coincide x's dimension
      */
-    public Vector<Real> getAlgorithmStep(Vector<Real> x, Vector<Real> ai, Vector<Real> pi, Real bi) {
+    public DoubleVector getAlgorithmStep(DoubleVector x, DoubleVector ai, DoubleVector pi, double bi) {
         if (x.getDimension() != ai.getDimension()
                 ||x.getDimension() != pi.getDimension())
             throw new IllegalArgumentException("Dimension of ai or pi doesn't coincide x's dimension");
-        Double norm = MathHelp.norm(ai);
-        Real normReal = Real.valueOf(norm);
-        return pi.times(bi.minus(ai.times(x)).divide(pi.times(ai)))
-                .times(Real.valueOf(relaxationParameter));
+        return pi.times((bi - ai.times(x))/pi.times(ai) * relaxationParameter);
     }
 
     @Override
@@ -92,8 +101,8 @@ public class Kaczmarz extends PureAlgorithm{
 
     // TODO: 18.10.2017 don't work 
     @Override
-    protected Vector<Real> getAlgorithmStep(Vector<Real> x, CostFunction function, VaryingParams vp) {
-        return getAlgorithmStep(x, function.getGradient(x),Real.valueOf(-10000));
+    protected DoubleVector getAlgorithmStep(DoubleVector x, CostFunction function, VaryingParams vp) {
+        return getAlgorithmStep(x, vp.getGradient(x, function), -10000);
     }
 
     @Override
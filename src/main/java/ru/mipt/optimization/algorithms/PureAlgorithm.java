@@ -1,10 +1,9 @@
 package ru.mipt.optimization.algorithms;
 
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.optimizationProcedure.OptimizationProcedure;
 import ru.mipt.optimization.entity.optimizationProcedure.StopCriteria;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
+import ru.mipt.optimization.supportive.DoubleVector;
 import ru.mipt.optimization.supportive.MathHelp;
 
 import java.util.function.Function;
@@ -20,16 +19,18 @@ public abstract class PureAlgorithm implements Algorithm {
     {setDefaultParameters();}
 
     @Override
-    public Vector<Real> conductOneIteration(Vector<Real> x, CostFunction function,
+    public DoubleVector conductOneIteration(DoubleVector x, CostFunction function,
                                             VaryingParams varPar) throws IllegalArgumentException {
 
-        Vector<Real> step = getAlgorithmStep(x,function, varPar);
+        DoubleVector step = getAlgorithmStep(x,function, varPar);
         step = function.correctToSearchRange(step, null);
 
-        Vector<Real> res = x.plus(step);
-        if (function.apply(res) == null)
+        DoubleVector res = x.plus(step);
+        Double cost = function.apply(res);
+        if (cost == null)
             res = function.getNearestDomainPoint(res, x);
        // else res = function.correctToSearchRange(res, x);
+        varPar.setNextCost(res, cost);
         return res;
     }
 
@@ -76,7 +77,7 @@ public abstract class PureAlgorithm implements Algorithm {
     }
 
     // returns delta vector to add to the current point x
-    protected abstract Vector<Real> getAlgorithmStep(Vector<Real> x, CostFunction function, VaryingParams varyingParams);
+    protected abstract DoubleVector getAlgorithmStep(DoubleVector x, CostFunction function, VaryingParams varyingParams);
 
     // prints algorithms configuration parameters
     protected abstract String printParams();
@@ -174,10 +175,10 @@ public abstract class PureAlgorithm implements Algorithm {
         //--------------------------------------------------------------------------------------------------------------
 
         private boolean checkForDecisionProximity(OptimizationProcedure optProc) {
-            Vector<Real> xk = optProc.getProcedurePoints().peekLast();
+            DoubleVector gradient = optProc.getTrajectory().getRecent(0).getGradient(optProc.getCostFunction());
             boolean res = true;
-            for (int i = 0; i < xk.getDimension(); i++)
-                if (Math.abs(optProc.getCostFunction().getPartialDerivative(xk, i)) > error){
+            for (int i = 0; i < gradient.getDimension(); i++)
+                if (Math.abs(gradient.get(i)) > error){
                     res = false;
                     break;
                 }
@@ -192,22 +193,19 @@ public abstract class PureAlgorithm implements Algorithm {
 
         private boolean checkForCostFuncChangeRate(OptimizationProcedure optProc) {
             double epsilon1 = 100*error;
-            int size = optProc.getProcedurePoints().size();
-            Vector<Real> xk = optProc.getProcedurePoints().get(size-1);
-            Vector<Real> xkMinus = optProc.getProcedurePoints().get(size-2);
-            return Math.abs(optProc.getCostFunction().apply(xkMinus) - optProc.getCostFunction().apply(xk))
-                    <= epsilon1;
+            Double fk = optProc.getTrajectory().getRecent(0).cost;
+            Double fkMinus = optProc.getTrajectory().getRecent(1).cost;
+            return Math.abs(fkMinus - fk) <= epsilon1;
         }
 
         private boolean checkForArgumentsChangeRate(OptimizationProcedure optProc){
             double delta = Math.sqrt(100*error);
-            int size = optProc.getProcedurePoints().size();
-            Vector<Real> xk = optProc.getProcedurePoints().get(size-1);
-            Vector<Real> xkMinus = optProc.getProcedurePoints().get(size-2);
+            DoubleVector xk = optProc.getTrajectory().getRecent(0).point;
+            DoubleVector xkMinus = optProc.getTrajectory().getRecent(1).point;
             boolean res = true;
-            Vector<Real> subtraction = xkMinus.minus(xk);
+            DoubleVector subtraction = xkMinus.minus(xk);
             for (int i=0; i<subtraction.getDimension(); i++)
-                if (Math.abs(subtraction.get(i).doubleValue()) > delta) {
+                if (Math.abs(subtraction.get(i)) > delta) {
                     res = false;
                     break;
                 }
@@ -216,10 +214,9 @@ public abstract class PureAlgorithm implements Algorithm {
 
         private boolean checkForArgumentsChangeRateNorm(OptimizationProcedure optProc){
 
-            int size = optProc.getProcedurePoints().size();
-            Vector<Real> xk = optProc.getProcedurePoints().get(size-1);
-            Vector<Real> xkMinus = optProc.getProcedurePoints().get(size-2);
-            Vector<Real> subtraction = xkMinus.minus(xk);
+            DoubleVector xk = optProc.getTrajectory().getRecent(0).point;
+            DoubleVector xkMinus = optProc.getTrajectory().getRecent(1).point;
+            DoubleVector subtraction = xkMinus.minus(xk);
 
             return MathHelp.norm(subtraction) < error;
         }
@@ -1,8 +1,8 @@
 package ru.mipt.optimization.algorithms;
 
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.Vector;
-import ru.mipt.optimization.entity.optimizationProcedure.StopCriteria;
+import ru.mipt.optimization.entity.optimizationProcedure.Trajectory;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
+import ru.mipt.optimization.supportive.DoubleVector;
 
 import java.util.LinkedList;
 import java.util.Queue;
@@ -17,8 +17,8 @@ public class VaryingParams {
 
     static {createDefaultEkMk();}
 
-    Vector<Real> curDirection; // current direction vector for GradientKaczmaezSearch
-    Vector<Real> prevGradient; // gradient vector on the previous iteration for GradientKaczmaezSearch
+    DoubleVector curDirection; // current direction vector for GradientKaczmaezSearch
+    DoubleVector prevGradient; // gradient vector on the previous iteration for GradientKaczmaezSearch
     boolean anew = true; // flag to move back to first outer loop for GradientKaczmaezSearch
 
     boolean done = false;
@@ -30,6 +30,10 @@ public class VaryingParams {
     int i = 0; // iteration
     int qk = 0; // for GradientKaczmaezSearch loop stop criteria
 
+    private Trajectory.Record curRecord; // record of the current point of the procedure, null if unknown
+    private DoubleVector nextPoint; // point returned by the last iteration, null if its cost isn't known
+    private Double nextCost; // value of the cost function in the nextPoint
+
     public VaryingParams(Queue<Double> ek, Queue<Double> mk) {
         this.ek = ek;
         this.mk = mk;
@@ -37,6 +41,38 @@ public class VaryingParams {
 
     public VaryingParams() {}
 
+    /**
+     * Sets record of the current point of the optimization procedure to reuse the values calculated in it
+     * @param curRecord - record of the current point
+     */
+    public void setCurrentRecord(Trajectory.Record curRecord) {
+        this.curRecord = curRecord;
+        this.nextPoint = null;
+        this.nextCost = null;
+    }
+
+    /**
+     * Returns value of the cost function in the point returned by the last iteration if the algorithm has evaluated it,
+     * so that the procedure doesn't evaluate it again
+     * @param point - point returned by the last iteration
+     * @return value of the cost function in the point or null if it hasn't been evaluated by the iteration
+     */
+    public Double getNextCost(DoubleVector point) {
+        return (nextPoint != null && nextPoint.equals(point)) ? nextCost : null;
+    }
+
+    // remembers value of the cost function in the point to be returned by the iteration
+    void setNextCost(DoubleVector point, Double cost) {
+        this.nextPoint = (cost == null) ? null : point;
+        this.nextCost = cost;
+    }
+
+    // returns gradient in the given point, recorded one if the point is the current point of the procedure
+    DoubleVector getGradient(DoubleVector x, CostFunction function) {
+        Trajectory.Record record = curRecord;
+        return (record != null && record.point.equals(x)) ? record.getGradient(function) : function.getGradient(x);
+    }
+
 
     private static void createDefaultEkMk() {
         int k = 10;
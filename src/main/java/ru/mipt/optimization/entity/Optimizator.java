@@ -1,19 +1,39 @@
 package ru.mipt.optimization.entity;
 
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.Vector;
+import ru.mipt.optimization.entity.inOut.AsyncOptimization;
 import ru.mipt.optimization.entity.inOut.Config;
 import ru.mipt.optimization.entity.inOut.Result;
+import ru.mipt.optimization.entity.optimizationProcedure.OptimizationHandle;
 import ru.mipt.optimization.entity.optimizationProcedure.OptimizationProcedure;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.AutoDiffCostFunc;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.DeterminateCostFunc;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.DomainIndex;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.ElementFunction;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.EvaluationCache;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.InfeasibilityCache;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.PartiallySeparableCostFunc;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.SparsityPattern;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.UndeterminateCostFunc;
+import ru.mipt.optimization.entity.typeWrapper.Dual;
 import ru.mipt.optimization.entity.typeWrapper.FieldWrapper;
 import ru.mipt.optimization.entity.typeWrapper.TypeWrapper;
+import ru.mipt.optimization.supportive.DoubleVector;
+import ru.mipt.optimization.supportive.ParallelHelp;
 
 
 import java.lang.reflect.Array;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /** Represents an object for optimization of the given cost functions and
  *  is essentially a wrapper to go over external data types.
@@ -24,6 +44,16 @@ public class Optimizator<T> {
     private int dimension;
     private TypeWrapper<T> typeConverter;
     private Function<T[], Double> function;// function to optimize
+    private Function<T[], double[]> gradient; // analytic gradient of the function, null if unknown
+    private BiFunction<T[], Double, List<double[]>> subGradients; // subgradients oracle, null if unknown
+    private Function<List<T[]>, List<Double>> batchFunction; // function evaluating many points at once, can be null
+    private Function<T[], double[]> elementFunction; // elements of the partially separable function, can be null
+    private SparsityPattern sparsityPattern; // declared dependencies of the elements, null if they're detected
+    private final List<ElementFunction> elementFunctions = new ArrayList<>(); // elements of the sum, empty if not declared
+    private Function<Dual[], Dual> dualFunction; // function to optimize over Dual numbers, null if not differentiable
+    private EvaluationCache evaluationCache; // memo cache of the function values shared by all the sessions and starts
+    private InfeasibilityCache infeasibilityCache; // points out of the domain shared the same way, null if not remembered
+    private DomainIndex domainIndex; // known points in and out of the domain shared the same way, null if not remembered
 
     private History history = new History();
 
@@ -55,6 +85,26 @@ public class Optimizator<T> {
         this.function = function;
     }
 
+    /**
+     * Creates an Optimizator object to optimize cost functions with the known analytic gradient.
+     * Gradient is taken by one call of the given rule instead of finite differences of the cost function.
+     * See {@link Optimizator#Optimizator(int, Function, Function, Class, Function)} for other parameters.
+     * @param dimension - dimension of the vector argument
+     * @param toNumber - rule to convert argument of type {@link T} to its Double interpretation.
+     * @param toType - rule to convert argument in its Double interpretation back to the type {@link T}.
+     * @param tClass - Class of the type {@link T} (to get round type erasure).
+     * @param function - cost function over vector argument with elements of {@link T} type.
+     * @param gradient - gradient of the cost function with respect to Double interpretation of the argument.
+     *                 Must return array of the given dimension or null if argument is out of the domain.
+     * @throws IllegalArgumentException if some arguments are null
+     */
+    public Optimizator(int dimension, Function<T, Double> toNumber, Function<Double, T> toType,
+                       Class<T> tClass, Function<T[], Double> function, Function<T[], double[]> gradient) {
+        this(dimension, toNumber, toType, tClass, function);
+        if (gradient == null) throw new IllegalArgumentException("Arguments in Optimizator constructor can't be null");
+        this.gradient = gradient;
+    }
+
     /**
      * @param configurations - configurations of this Optimizator session
      * @param startPoints - list of points to start optimization process.
@@ -67,15 +117,12 @@ public class Optimizator<T> {
      */
     public Result optimize(Config configurations, List<T[]> startPoints) throws IllegalArgumentException {
         Config config = (configurations == null) ? new Config() : configurations;
-        OptimizationProcedure procedure = new OptimizationProcedure(createCostFunction(function, config), config);
+        OptimizationProcedure procedure = new OptimizationProcedure(createCostFunction(function, config, 0), config);
         Result result = new Result<T>(procedure, typeConverter);
 
+        checkStartPoints(startPoints, procedure.getCostFunction());
         for (T[] startPoint: startPoints) {
-            if (startPoint.length != dimension || function.apply(startPoint) == null)
-                throw new IllegalArgumentException("Either dimension of the given startPoint does not match Optimizator's dimension" +
-                        " or given function does not match given startPoint");
-
-            procedure.start(typeConverter.convertPoint(startPoint));
+            procedure.start(typeConverter.convertToDoubleVector(startPoint));
             result.updateResults();
         }
 
@@ -83,6 +130,119 @@ public class Optimizator<T> {
         return result;
     }
 
+    /**
+     * Optimizes from all the given start points in parallel.
+     * Every start is conducted by its own optimization procedure over its own cost function,
+     * results of all starts are merged in one {@link Result}.
+     * Note: the cost function must be safe to call from several threads at once.
+     * @param configurations - configurations of this Optimizator session
+     * @param startPoints - list of points to start optimization process.
+     *                    Note: the dimension of given points
+     *                    must match current Optimizator's {@link ru.mipt.optimization.entity.Optimizator#dimension}
+     * @param executor - executor to run starts on. If null {@link ForkJoinPool#commonPool()} is used.
+     *                 For I/O-bound cost functions see {@link ParallelHelp#newEvaluationExecutor()}.
+     * @return results of optimization for all given start points
+     * @throws IllegalArgumentException if dimension of the vector argument of the current Optimizator's
+     * {@link ru.mipt.optimization.entity.Optimizator#function} or of some point in startPoints list
+     * does not match current Optimizator's {@link ru.mipt.optimization.entity.Optimizator#dimension}
+     * @throws RuntimeException if some start has failed or waiting for the starts has been interrupted
+     */
+    public Result optimize(Config configurations, List<T[]> startPoints, ExecutorService executor)
+            throws IllegalArgumentException {
+        final Config config = (configurations == null) ? new Config() : configurations;
+        ExecutorService pool = (executor == null) ? ForkJoinPool.commonPool() : executor;
+        OptimizationProcedure session = new OptimizationProcedure(createCostFunction(function, config, 0), config);
+        final Result<T> result = new Result<T>(session, typeConverter);
+
+        checkStartPoints(startPoints, session.getCostFunction());
+
+        List<Future<?>> starts = new ArrayList<>(startPoints.size());
+        for (final T[] startPoint: startPoints) {
+            final int index = starts.size();
+            starts.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    OptimizationProcedure procedure = new OptimizationProcedure(
+                            createCostFunction(function, config, index), config);
+                    procedure.start(typeConverter.convertToDoubleVector(startPoint));
+                    result.updateResults(procedure);
+                }
+            }));
+        }
+
+        for (Future<?> start: starts) ParallelHelp.await(start);
+
+        history.results.put(config, result);
+        return result;
+    }
+
+    /**
+     * Optimizes from all the given start points asynchronously without blocking the calling thread.
+     * Every start is conducted by its own optimization procedure over its own cost function,
+     * results of all starts are merged in one {@link Result}.
+     * Note: the cost function must be safe to call from several threads at once.
+     * @param configurations - configurations of this Optimizator session
+     * @param startPoints - list of points to start optimization process.
+     *                    Note: the dimension of given points
+     *                    must match current Optimizator's {@link ru.mipt.optimization.entity.Optimizator#dimension}
+     * @param executor - executor to run starts on. If null {@link ForkJoinPool#commonPool()} is used.
+     * @return future of the results of all the starts and handles of the particular starts.
+     * Start which point doesn't match the {@link ru.mipt.optimization.entity.Optimizator#dimension} or isn't
+     * in the domain fails its future, and the future of the results fails with it.
+     */
+    public AsyncOptimization<T> optimizeAsync(Config configurations, List<T[]> startPoints, Executor executor) {
+        return optimizeAsync(configurations, startPoints, executor, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Optimizes from all the given start points asynchronously with the deadline.
+     * Starts not finished by the deadline are stopped after their current iterations and are kept in the results.
+     * See {@link Optimizator#optimizeAsync(Config, List, Executor)} for other parameters.
+     * @param timeout - wall-clock time since this call after which the starts are stopped.
+     *                If not positive the starts run until their stop criteria.
+     * @param unit - unit of the timeout
+     * @return future of the results of all the starts and handles of the particular starts
+     */
+    public AsyncOptimization<T> optimizeAsync(Config configurations, List<T[]> startPoints, Executor executor,
+                                              long timeout, TimeUnit unit) {
+        final Config config = (configurations == null) ? new Config() : configurations;
+        Executor pool = (executor == null) ? ForkJoinPool.commonPool() : executor;
+        OptimizationProcedure session = new OptimizationProcedure(createCostFunction(function, config, 0), config);
+        final Result<T> result = new Result<T>(session, typeConverter);
+
+        List<OptimizationHandle> starts = new ArrayList<>(startPoints.size());
+        CompletableFuture<?>[] merged = new CompletableFuture<?>[startPoints.size()];
+        for (final T[] startPoint: startPoints) {
+            OptimizationProcedure procedure = new OptimizationProcedure(
+                    createCostFunction(function, config, starts.size()), config);
+            OptimizationHandle start = procedure.startAsync(new Supplier<DoubleVector>() {
+                @Override
+                public DoubleVector get() { // is checked on the executor not to block the calling thread
+                    if (startPoint.length != dimension) throw new IllegalArgumentException("Dimension of the given " +
+                            "startPoint does not match Optimizator's dimension");
+                    return typeConverter.convertToDoubleVector(startPoint);
+                }
+            }, pool, timeout, unit);
+            merged[starts.size()] = start.getFuture().thenAccept(new Consumer<OptimizationProcedure>() {
+                @Override
+                public void accept(OptimizationProcedure finished) {
+                    result.updateResults(finished);
+                }
+            });
+            starts.add(start);
+        }
+
+        CompletableFuture<Result<T>> all = CompletableFuture.allOf(merged).thenApply(
+                new Function<Void, Result<T>>() {
+                    @Override
+                    public Result<T> apply(Void done) {
+                        history.results.put(config, result);
+                        return result;
+                    }
+                });
+        return new AsyncOptimization<>(all, starts);
+    }
+
     //------------------------------------------------------------------------------------------------------------------
 
     public int getDimension() {
@@ -97,16 +257,259 @@ public class Optimizator<T> {
         return history;
     }
 
+    /**
+     * Creates an Optimizator object to optimize cost function written over {@link Dual} numbers.
+     * Gradient and derivatives of such function are calculated by automatic differentiation
+     * instead of finite differences.
+     * Note: the function is evaluated in the Double interpretation of the argument,
+     * i.e. without conversion to the type {@link T}.
+     * See {@link Optimizator#Optimizator(int, Function, Function, Class, Function)} for other parameters.
+     * @param dimension - dimension of the vector argument
+     * @param toNumber - rule to convert argument of type {@link T} to its Double interpretation.
+     * @param toType - rule to convert argument in its Double interpretation back to the type {@link T}.
+     * @param tClass - Class of the type {@link T} (to get round type erasure).
+     * @param function - cost function over Double interpretation of the vector argument written over Dual numbers.
+     *                 Returns null if argument is out of the domain.
+     * @param <T> - type of the elements of the vector argument
+     * @return Optimizator of the given differentiable function
+     * @throws IllegalArgumentException if some arguments are null
+     */
+    public static <T> Optimizator<T> differentiable(int dimension, Function<T, Double> toNumber,
+                                                    Function<Double, T> toType, Class<T> tClass,
+                                                    final Function<Dual[], Dual> function) {
+        if (function == null) throw new IllegalArgumentException("Arguments in Optimizator constructor can't be null");
+        final Optimizator<T> optimizator = new Optimizator<>(dimension, toNumber, toType, tClass, null);
+        optimizator.dualFunction = function;
+        optimizator.function = new Function<T[], Double>() {
+            @Override
+            public Double apply(T[] t) {
+                Dual res = function.apply(Dual.constants(optimizator.typeConverter.convertToDoubleVector(t)));
+                return (res == null) ? null : res.doubleValue();
+            }};
+        return optimizator;
+    }
+
+    /**
+     * Sets subgradients oracle for the cost function with the known analytic gradient.
+     * If not set subgradients are sampled by the gradient.
+     * @param subGradients - rule for mapping the argument and the area around it to subgradients in this area.
+     * @throws IllegalStateException if the gradient of the cost function is unknown
+     */
+    public void setSubGradients(BiFunction<T[], Double, List<double[]>> subGradients) {
+        if (gradient == null)
+            throw new IllegalStateException("Subgradients can be set only for the cost function with known gradient");
+        this.subGradients = subGradients;
+    }
+
+    public Function<List<T[]>, List<Double>> getBatchFunction() {
+        return batchFunction;
+    }
+
+    /**
+     * Sets function evaluating many points in one call, e.g. vectorized one or the simulator accepting the batch.
+     * Is used to evaluate finite-difference stencils and all the start points at once.
+     * Note: batch function must give the same values as the {@link ru.mipt.optimization.entity.Optimizator#function}.
+     * @param batchFunction - rule for mapping points in their costs in the same order,
+     *                      null for the points out of the domain. If null points are evaluated one by one.
+     */
+    public void setBatchFunction(Function<List<T[]>, List<Double>> batchFunction) {
+        this.batchFunction = batchFunction;
+    }
+
+    public Function<T[], double[]> getElementFunction() {
+        return elementFunction;
+    }
+
+    public SparsityPattern getSparsityPattern() {
+        return sparsityPattern;
+    }
+
+    /**
+     * Sets elements of the partially separable {@link ru.mipt.optimization.entity.Optimizator#function},
+     * i.e. the function is their sum and every element depends only on few coordinates.
+     * Is used to estimate the gradient by
+     * {@link ru.mipt.optimization.entity.optimizationProcedure.costFunction.GradientEstimation#SPARSE_FINITE_DIFFERENCES},
+     * perturbing structurally independent coordinates together.
+     * @param elementFunction - rule for mapping the point in the values of the elements in the same order every time,
+     *                        null if it's out of the domain. If null the gradient isn't estimated by elements.
+     * @param dependencies - coordinates every element depends on. If null they're detected in the first point
+     *                     at the cost of dimension plus one evaluations.
+     * @throws IllegalArgumentException if some coordinate of the dependencies is out of the dimension
+     */
+    public void setElementFunction(Function<T[], double[]> elementFunction, int[][] dependencies) {
+        this.elementFunction = elementFunction;
+        this.sparsityPattern = (dependencies == null) ? null : new SparsityPattern(dimension, dependencies);
+    }
+
+    public List<ElementFunction> getElementFunctions() {
+        return Collections.unmodifiableList(elementFunctions);
+    }
+
+    /**
+     * Adds element of the partially separable {@link ru.mipt.optimization.entity.Optimizator#function},
+     * i.e. the function is the sum of the added elements and every element depends only on few coordinates.
+     * If elements are added the function is evaluated as their sum, re-evaluating only the elements affected
+     * by the changed coordinates (see {@link PartiallySeparableCostFunc}), and
+     * {@link Optimizator#setElementFunction element function} isn't used.
+     * Note: sum of the elements must give the same values as the function.
+     * @param indices - coordinates the element depends on
+     * @param element - element over the coordinates in the order of the indices, returns null if they're out of the domain
+     * @throws IllegalArgumentException if some index is out of the dimension or repeated, or element is null
+     */
+    public void addElementFunction(int[] indices, final Function<T[], Double> element) {
+        if (indices == null || element == null) throw new IllegalArgumentException("Indices and element can't be null!");
+        for (int j = 0; j < indices.length; j++) {
+            if (indices[j] < 0 || indices[j] >= dimension)
+                throw new IllegalArgumentException("Index " + indices[j] + " is out of the dimension " + dimension);
+            for (int l = 0; l < j; l++)
+                if (indices[l] == indices[j]) throw new IllegalArgumentException("Index " + indices[j] + " is repeated!");
+        }
+        elementFunctions.add(new ElementFunction(indices, new Function<double[], Double>() {
+            @Override
+            public Double apply(double[] coordinates) {
+                return element.apply(typeConverter.convertPoint(DoubleVector.wrap(coordinates)));
+            }}));
+    }
+
+    public void clearElementFunctions() {
+        elementFunctions.clear();
+    }
+
+    public EvaluationCache getEvaluationCache() {
+        return evaluationCache;
+    }
+
+    /**
+     * Turns on memoization of the values of the {@link ru.mipt.optimization.entity.Optimizator#function}.
+     * Cached values are shared by all subsequent optimization sessions and their starts,
+     * so repeated evaluations in the same point cost nothing.
+     * @param capacity - maximum number of the cached points. If not positive memoization is turned off.
+     * @param policy - policy to choose points to evict when capacity is exceeded
+     */
+    public void setEvaluationCache(int capacity, EvaluationCache.EvictionPolicy policy) {
+        evaluationCache = (capacity > 0) ? new EvaluationCache(capacity, policy) : null;
+    }
+
+    public InfeasibilityCache getInfeasibilityCache() {
+        return infeasibilityCache;
+    }
+
+    /**
+     * Turns on remembering of the points out of the domain of the {@link ru.mipt.optimization.entity.Optimizator#function},
+     * so that the function isn't called again in them by all subsequent optimization sessions and their starts.
+     * @param capacity - maximum number of the remembered points or cells. If not positive remembering is turned off.
+     * @param resolution - size of the cell for {@link InfeasibilityCache.FalsePositivePolicy#QUANTIZED} policy,
+     *                   usually {@link Config#accuracyOfDomainSearch}
+     * @param policy - policy to answer for the points never seen before
+     */
+    public void setInfeasibilityCache(int capacity, double resolution, InfeasibilityCache.FalsePositivePolicy policy) {
+        infeasibilityCache = (capacity > 0) ? new InfeasibilityCache(capacity, resolution, policy) : null;
+    }
+
+    public DomainIndex getDomainIndex() {
+        return domainIndex;
+    }
+
+    /**
+     * Sets index of the points known to be in or out of the domain of the {@link ru.mipt.optimization.entity.Optimizator#function}.
+     * The index is shared by all subsequent optimization sessions and their starts,
+     * so domain search starts from the nearest domain point found before in its direction.
+     * Is turned off by default.
+     * @param capacity - maximum number of the known points. If less than 2 points aren't remembered.
+     */
+    public void setDomainIndex(int capacity) {
+        domainIndex = (capacity > 1) ? new DomainIndex(capacity) : null;
+    }
+
     //------------------------------------------------------------------------------------------------------------------
     
-    //// TODO: 03.10.2017 change to consider determinate or undeterminate cost function
-    private CostFunction createCostFunction(final Function<T[], Double> initialFunc, Config configurations) {
-        Function<Vector<Real>, Double> funcReal = new Function<Vector<Real>, Double>() {
+    // checks all the start points, evaluating the function in them by one batch if the batch function is set
+    private void checkStartPoints(List<T[]> startPoints, CostFunction costFunction) {
+        List<DoubleVector> points = new ArrayList<>(startPoints.size());
+        for (T[] startPoint: startPoints) {
+            if (startPoint.length != dimension) throw new IllegalArgumentException("Either dimension of the given " +
+                    "startPoint does not match Optimizator's dimension or given function does not match given startPoint");
+            points.add(typeConverter.convertToDoubleVector(startPoint));
+        }
+        for (Double value: costFunction.applyAll(points))
+            if (value == null) throw new IllegalArgumentException("Either dimension of the given startPoint does not " +
+                    "match Optimizator's dimension or given function does not match given startPoint");
+    }
+
+    // creates determinate cost function if gradient is known and undeterminate one otherwise.
+    // Undeterminate function of the given start of the multi-start gets its own seed of the random perturbations
+    private CostFunction createCostFunction(final Function<T[], Double> initialFunc, Config configurations, int start) {
+        if (dualFunction != null) {
+            CostFunction costFunction = new AutoDiffCostFunc(dualFunction, dimension, configurations);
+            costFunction.setEvaluationCache(evaluationCache);
+            costFunction.setInfeasibilityCache(infeasibilityCache);
+            costFunction.setDomainIndex(domainIndex);
+            return costFunction;
+        }
+
+        Function<DoubleVector, Double> funcReal = new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector point) {
+                return initialFunc.apply(typeConverter.convertPoint(point));
+            }};
+        CostFunction costFunction = (gradient == null)
+                ? (elementFunctions.isEmpty() ? new UndeterminateCostFunc(funcReal, dimension, configurations)
+                    : new PartiallySeparableCostFunc(elementFunctions, dimension, configurations))
+                : new DeterminateCostFunc(funcReal, createGradientRule(), createSubGradientRule(),
+                    dimension, configurations);
+        costFunction.setEvaluationCache(evaluationCache);
+        costFunction.setInfeasibilityCache(infeasibilityCache);
+        costFunction.setDomainIndex(domainIndex);
+        if (batchFunction != null) costFunction.setBatchRule(createBatchRule());
+        if (elementFunction != null && elementFunctions.isEmpty() && costFunction instanceof UndeterminateCostFunc)
+            ((UndeterminateCostFunc) costFunction).setElementRule(createElementRule(), sparsityPattern);
+        if (configurations.getSpsaSeed() != null && costFunction instanceof UndeterminateCostFunc)
+            ((UndeterminateCostFunc) costFunction).setSpsaSeed(configurations.getSpsaSeed() + start);
+        return costFunction;
+    }
+
+    private Function<DoubleVector, DoubleVector> createElementRule() {
+        final Function<T[], double[]> initialElements = elementFunction;
+        return new Function<DoubleVector, DoubleVector>() {
             @Override
-            public Double apply(Vector<Real> realVector) {
-                return initialFunc.apply(typeConverter.convertPoint(realVector));
+            public DoubleVector apply(DoubleVector point) {
+                double[] elements = initialElements.apply(typeConverter.convertPoint(point));
+                return (elements == null) ? null : DoubleVector.valueOf(elements);
+            }};
+    }
+
+    private Function<List<DoubleVector>, List<Double>> createBatchRule() {
+        final Function<List<T[]>, List<Double>> initialBatch = batchFunction;
+        return new Function<List<DoubleVector>, List<Double>>() {
+            @Override
+            public List<Double> apply(List<DoubleVector> points) {
+                List<T[]> converted = new ArrayList<>(points.size());
+                for (DoubleVector point: points) converted.add(typeConverter.convertPoint(point));
+                return initialBatch.apply(converted);
+            }};
+    }
+
+    private Function<DoubleVector, DoubleVector> createGradientRule() {
+        final Function<T[], double[]> initialGradient = gradient;
+        return new Function<DoubleVector, DoubleVector>() {
+            @Override
+            public DoubleVector apply(DoubleVector point) {
+                double[] g = initialGradient.apply(typeConverter.convertPoint(point));
+                return (g == null) ? null : DoubleVector.valueOf(g);
+            }};
+    }
+
+    private BiFunction<DoubleVector, Double, List<DoubleVector>> createSubGradientRule() {
+        final BiFunction<T[], Double, List<double[]>> initialSubGradients = subGradients;
+        if (initialSubGradients == null) return null;
+        return new BiFunction<DoubleVector, Double, List<DoubleVector>>() {
+            @Override
+            public List<DoubleVector> apply(DoubleVector point, Double area) {
+                List<DoubleVector> res = new LinkedList<>();
+                for (double[] g: initialSubGradients.apply(typeConverter.convertPoint(point), area))
+                    res.add(DoubleVector.valueOf(g));
+                return res;
             }};
-        return new UndeterminateCostFunc(funcReal, dimension, configurations);
     }
 
     //-------------------------------------- inner classes -------------------------------------------------------------
@@ -115,7 +518,7 @@ public class Optimizator<T> {
      * Stores results of this Optimizator's work
      */
     public class History {
-        Map<Config, Result<T>> results = new HashMap<>();
+        Map<Config, Result<T>> results = Collections.synchronizedMap(new HashMap<Config, Result<T>>());
 
         /**
          * Returns all results of this Optimizator's work sorted by given parameters
@@ -125,7 +528,10 @@ public class Optimizator<T> {
          * @return all results of this Optimizator's work sorted by given parameters
          */
         public LinkedList<Result<T>> getSortedResults(boolean byFinalDecision, boolean byTime) {
-            LinkedList<Result<T>> resultsToSort = new LinkedList<>(results.values());
+            LinkedList<Result<T>> resultsToSort;
+            synchronized (results) {
+                resultsToSort = new LinkedList<>(results.values());
+            }
             Collections.sort(resultsToSort, getComparator(byFinalDecision, byTime));
             return resultsToSort;
         }
@@ -136,6 +542,17 @@ public class Optimizator<T> {
          */
         public Map<Config, Result<T>> getResultHistory() { return results;}
 
+        /**
+         * Deletes files with the full trajectories of all results of this Optimizator's work
+         * (see {@link Result#deleteTrajectoryFiles()})
+         * @throws java.io.UncheckedIOException if some file can't be deleted
+         */
+        public void deleteTrajectoryFiles() {
+            synchronized (results) {
+                for (Result<T> result: results.values()) result.deleteTrajectoryFiles();
+            }
+        }
+
 
         //--------------------------------------------------------------------------------------------------------------
 
@@ -153,10 +570,10 @@ public class Optimizator<T> {
                     } else if (!o2.getSortedResults(byFinalDecision, byTime).isEmpty()
                             && !o1.getSortedResults(byFinalDecision, byTime).isEmpty()) {
 
-                        List<Result.OneShot> shots1 = o1.getSortedResults(byFinalDecision, byTime);
-                        List<Result.OneShot> shots2 = o2.getSortedResults(byFinalDecision, byTime);
-                        Map.Entry<T[], Double> final1 = (Map.Entry<T[], Double>) shots1.get(0).finalDecision;
-                        Map.Entry<T[], Double> final2 = (Map.Entry<T[], Double>) shots2.get(0).finalDecision;
+                        List<Result<T>.OneShot> shots1 = o1.getSortedResults(byFinalDecision, byTime);
+                        List<Result<T>.OneShot> shots2 = o2.getSortedResults(byFinalDecision, byTime);
+                        Map.Entry<T[], Double> final1 = shots1.get(0).finalDecision;
+                        Map.Entry<T[], Double> final2 = shots2.get(0).finalDecision;
                         Double time1 = shots1.get(0).time;
                         Double time2 = shots2.get(0).time;
 
@@ -0,0 +1,48 @@
+package ru.mipt.optimization.entity.inOut;
+
+import ru.mipt.optimization.entity.optimizationProcedure.OptimizationHandle;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represents the optimization session started asynchronously from several start points.
+ * Gives the future of the merged {@link Result} and the handles of all the starts to compose, cancel or inspect them.
+ */
+public class AsyncOptimization<T> {
+
+    private final CompletableFuture<Result<T>> result;
+    private final List<OptimizationHandle> starts;
+
+    public AsyncOptimization(CompletableFuture<Result<T>> result, List<OptimizationHandle> starts) {
+        this.result = result;
+        this.starts = Collections.unmodifiableList(starts);
+    }
+
+    /**
+     * Returns future completed with the results of all the starts once they are finished.
+     * Is completed exceptionally if some start has failed.
+     * @return future of the results of all the starts
+     */
+    public CompletableFuture<Result<T>> getResult() {
+        return result;
+    }
+
+    /**
+     * Returns handles of the starts in the order of the start points,
+     * see {@link OptimizationHandle#getFuture()} for the future of the particular start
+     * @return handles of the starts
+     */
+    public List<OptimizationHandle> getStarts() {
+        return starts;
+    }
+
+    /**
+     * Requests all the starts to stop after their current iterations.
+     * Results of the stopped starts are kept in the {@link AsyncOptimization#getResult() result}.
+     */
+    public void cancel() {
+        for (OptimizationHandle start: starts) start.cancel();
+    }
+}
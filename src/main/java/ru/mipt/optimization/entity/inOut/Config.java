@@ -4,7 +4,16 @@ import ru.mipt.optimization.algorithms.Algorithm;
 import ru.mipt.optimization.algorithms.GradientDescent;
 import ru.mipt.optimization.algorithms.Kaczmarz;
 import ru.mipt.optimization.algorithms.VaryingParams;
+import ru.mipt.optimization.entity.optimizationProcedure.IterationListener;
 import ru.mipt.optimization.entity.optimizationProcedure.StopCriteria;
+import ru.mipt.optimization.entity.optimizationProcedure.Trajectory;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.DifferenceScheme;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.GradientEstimation;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Represents the configurations of the optimization procedure
@@ -15,11 +24,23 @@ public class Config {
     private static final double DEFAULT_ACCURACY = 0.01;
     private static final double DEFAULT_SEARCH_RANGE[] = {-10000,10000};
     private static final int DEFAULT_MAX_RECURSION_NUM = 400;
+    private static final int DEFAULT_MAX_ITERATIONS_NUM = 200;
 
     public final double accuracyOfDomainSearch;
     public final double[] searchRange;
 
     private final Algorithm algorithm;
+    private int maxIterationsNumber = DEFAULT_MAX_ITERATIONS_NUM;
+    private int domainSearchBudget = 0; // evaluations of the function to search domain, if 0 max recursion number is used
+    private ExecutorService evaluationExecutor; // executor for concurrent evaluations of the cost function, null if sequential
+    private Trajectory.Retention trajectoryRetention = Trajectory.Retention.keepAll();
+    private Path trajectoryDirectory; // directory to write full trajectories off-heap in, null if they aren't written
+    private final List<IterationListener> iterationListeners = new CopyOnWriteArrayList<>();
+    private GradientEstimation gradientEstimation = GradientEstimation.FINITE_DIFFERENCES;
+    private int spsaPerturbationsNum = 1;
+    private Long spsaSeed; // seed of the random perturbations, null if random
+    private DifferenceScheme differenceScheme = DifferenceScheme.FORWARD;
+    private boolean adaptiveDifferenceStep = false; // if false step of the differences is accuracyOfDomainSearch
 
     /**
      * Creates Config object with given parameters
@@ -89,7 +110,169 @@ public class Config {
         return algorithm.setParams(params);
     }
 
+    /**
+     * Sets maximum number of iterations of the optimization procedure,
+     * after which the procedure is stopped whatever the specified stop criteria is.
+     * @param maxIterationsNumber - maximum number of iterations. Must be greater than 1.
+     * @throws IllegalArgumentException if maxIterationsNumber is less than 2
+     */
+    public void setMaxIterationsNumber(int maxIterationsNumber) {
+        if (maxIterationsNumber < 2)
+            throw new IllegalArgumentException("Maximum number of iterations must be greater than 1!");
+        this.maxIterationsNumber = maxIterationsNumber;
+    }
+
+    /**
+     * Sets maximum number of the evaluations of the cost function spent on one search of its domain boundary.
+     * @param domainSearchBudget - maximum number of evaluations.
+     *                           If not positive {@link Config#getMaxRecursionNumber()} is used (default).
+     */
+    public void setDomainSearchBudget(int domainSearchBudget) {
+        this.domainSearchBudget = domainSearchBudget;
+    }
+
+    /**
+     * Sets executor to evaluate the cost function concurrently, e.g. in all the points of the finite-difference gradient.
+     * For I/O-bound cost functions use {@link ru.mipt.optimization.supportive.ParallelHelp#newEvaluationExecutor()}
+     * running evaluations in virtual threads where JDK allows it.
+     * Note: the cost function must be safe to call from several threads at once.
+     * The executor must not be the bounded one the optimization starts themselves are running on,
+     * otherwise starts can wait for the evaluations that have no thread to run on.
+     * @param evaluationExecutor - executor to evaluate on. If null evaluations are sequential (default).
+     */
+    public void setEvaluationExecutor(ExecutorService evaluationExecutor) {
+        this.evaluationExecutor = evaluationExecutor;
+    }
+
+    /**
+     * Sets policy to keep the decision points of the optimization procedure older than the recent ones.
+     * Limits memory spent on the trajectory of long runs in high dimensions.
+     * @param trajectoryRetention - retention policy. Default is {@link Trajectory.Retention#keepAll()}.
+     * @throws IllegalArgumentException if trajectoryRetention is null
+     */
+    public void setTrajectoryRetention(Trajectory.Retention trajectoryRetention) {
+        if (trajectoryRetention == null) throw new IllegalArgumentException("Trajectory retention can't be null!");
+        this.trajectoryRetention = trajectoryRetention;
+    }
+
+    /**
+     * Sets directory to write full trajectories of the optimization procedure in.
+     * Every start writes its decision points with their costs in the new memory-mapped
+     * {@link ru.mipt.optimization.entity.optimizationProcedure.TrajectoryFile}, so with
+     * {@link Config#setTrajectoryRetention limited retention} long runs keep the full trajectory off-heap.
+     * Files are kept until they're deleted by {@link Result#deleteTrajectoryFiles()}.
+     * @param trajectoryDirectory - existing directory. If null trajectories aren't written (default).
+     */
+    public void setTrajectoryDirectory(Path trajectoryDirectory) {
+        this.trajectoryDirectory = trajectoryDirectory;
+    }
+
+    /**
+     * Sets method to estimate the gradient of the cost function which gradient is unknown.
+     * {@link GradientEstimation#SPSA} costs 2 evaluations per perturbation instead of n+1,
+     * so suits expensive cost functions of high dimension, though its gradient is only the random estimation.
+     * {@link GradientEstimation#SPARSE_FINITE_DIFFERENCES} costs groups of structurally independent coordinates
+     * plus one evaluations of the elements of the partially separable function, if its elements are set.
+     * @param gradientEstimation - method to estimate the gradient. Default is {@link GradientEstimation#FINITE_DIFFERENCES}.
+     * @throws IllegalArgumentException if gradientEstimation is null
+     */
+    public void setGradientEstimation(GradientEstimation gradientEstimation) {
+        if (gradientEstimation == null) throw new IllegalArgumentException("Gradient estimation can't be null!");
+        this.gradientEstimation = gradientEstimation;
+    }
+
+    /**
+     * Configures {@link GradientEstimation#SPSA} estimation of the gradient and selects it.
+     * Perturbation of every coordinate is constant, accuracyOfDomainSearch, with no decreasing gain sequence,
+     * so the estimation keeps its bias and variance near the minimum. Decision proximity of the common stop criteria
+     * is checked against this random estimation too, so more perturbations make the stop more reliable.
+     * @param perturbationsNum - number of the random perturbations to average the gradient over. Must be positive.
+     * @param seed - seed of the random perturbations for reproducible runs, start i of the multi-start uses seed + i.
+     *             If null perturbations are random.
+     * @throws IllegalArgumentException if perturbationsNum isn't positive
+     */
+    public void setSpsaGradientEstimation(int perturbationsNum, Long seed) {
+        if (perturbationsNum < 1) throw new IllegalArgumentException("Number of perturbations must be positive!");
+        this.gradientEstimation = GradientEstimation.SPSA;
+        this.spsaPerturbationsNum = perturbationsNum;
+        this.spsaSeed = seed;
+    }
+
+    /**
+     * Sets finite-difference scheme to calculate partial derivatives of the cost function which gradient is unknown.
+     * Adaptive step is estimated for every coordinate from the truncation error of the scheme and the roundoff error
+     * of the function, so it doesn't depend on accuracyOfDomainSearch.
+     * @param differenceScheme - scheme of the differences. Default is {@link DifferenceScheme#FORWARD}.
+     * @param adaptiveStep - true to estimate steps of the coordinates, false to use accuracyOfDomainSearch (default)
+     * @throws IllegalArgumentException if differenceScheme is null
+     */
+    public void setDifferenceScheme(DifferenceScheme differenceScheme, boolean adaptiveStep) {
+        if (differenceScheme == null) throw new IllegalArgumentException("Difference scheme can't be null!");
+        this.differenceScheme = differenceScheme;
+        this.adaptiveDifferenceStep = adaptiveStep;
+    }
+
+    /**
+     * Adds listener of the iterations of every optimization procedure run with this configurations.
+     * Listener is called on the thread of the procedure, wrap slow ones in
+     * {@link ru.mipt.optimization.entity.optimizationProcedure.BufferedIterationListener}.
+     * @param listener - listener to add
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addIterationListener(IterationListener listener) {
+        if (listener == null) throw new IllegalArgumentException("Iteration listener can't be null!");
+        iterationListeners.add(listener);
+    }
+
+    public void removeIterationListener(IterationListener listener) {
+        iterationListeners.remove(listener);
+    }
+
     //------------------------------------------------------------------------------------------------------------------
+    public int getMaxIterationsNumber() {
+        return maxIterationsNumber;
+    }
+
+    public int getDomainSearchBudget() {
+        return (domainSearchBudget > 0) ? domainSearchBudget : Math.max(1, getMaxRecursionNumber());
+    }
+
+    public ExecutorService getEvaluationExecutor() {
+        return evaluationExecutor;
+    }
+
+    public Trajectory.Retention getTrajectoryRetention() {
+        return trajectoryRetention;
+    }
+
+    public Path getTrajectoryDirectory() {
+        return trajectoryDirectory;
+    }
+
+    public GradientEstimation getGradientEstimation() {
+        return gradientEstimation;
+    }
+
+    public int getSpsaPerturbationsNum() {
+        return spsaPerturbationsNum;
+    }
+
+    public Long getSpsaSeed() {
+        return spsaSeed;
+    }
+
+    public DifferenceScheme getDifferenceScheme() {
+        return differenceScheme;
+    }
+
+    public boolean isAdaptiveDifferenceStep() {
+        return adaptiveDifferenceStep;
+    }
+
+    public List<IterationListener> getIterationListeners() {
+        return iterationListeners;
+    }
+
     public int getMaxRecursionNumber() {
         double givenMax = (searchRange[1] - searchRange[0])/accuracyOfDomainSearch;
         Double max = (givenMax < DEFAULT_MAX_RECURSION_NUM) ? givenMax : DEFAULT_MAX_RECURSION_NUM;
@@ -114,11 +297,16 @@ public class Config {
         return DEFAULT_MAX_RECURSION_NUM;
     }
 
+    public static int getDefaultMaxIterationsNum() {
+        return DEFAULT_MAX_ITERATIONS_NUM;
+    }
+
     @Override
     public String toString() {
         String str = "Congig: ";
         str += "accuracy of domain search is "+ accuracyOfDomainSearch
                 + ", search range is [" + searchRange[0] + ", " + searchRange[1] + "]"
+                + ", max iterations number is " + maxIterationsNumber
                      +"; \n algorithm is " +
                     algorithm.print();
         return str;
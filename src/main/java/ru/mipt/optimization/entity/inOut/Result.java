@@ -1,13 +1,18 @@
 package ru.mipt.optimization.entity.inOut;
 
 import org.apache.commons.collections4.map.MultiKeyMap;
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.optimizationProcedure.OptimizationProcedure;
+import ru.mipt.optimization.entity.optimizationProcedure.Trajectory;
+import ru.mipt.optimization.entity.optimizationProcedure.TrajectoryFile;
 import ru.mipt.optimization.entity.typeWrapper.TypeWrapper;
+import ru.mipt.optimization.supportive.DoubleVector;
 import ru.mipt.optimization.supportive.Graphics;
 import ru.mipt.optimization.supportive.Tuple;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Function;
 
@@ -22,7 +27,7 @@ public class Result<T> {
     private Map<T[], OneShot> allStartsResults = new HashMap<>();
 
     private final Parser parser;
-    private MultiKeyMap<Boolean, LinkedList<Result.OneShot>> sortedResults = new MultiKeyMap<Boolean, LinkedList<Result.OneShot>>();
+    private MultiKeyMap<Boolean, LinkedList<OneShot>> sortedResults = new MultiKeyMap<Boolean, LinkedList<OneShot>>();
 
     /**
      * Creates empty Result object
@@ -43,9 +48,22 @@ public class Result<T> {
      *  @throws RuntimeException if some arguments for optimization is wrong
      */
     public void updateResults() {
+        updateResults(optimizationProcedure);
+    }
+
+    /**
+     * Adds result of the current start of the given optimization procedure.
+     * Is used to merge results of the procedures running in parallel over the same cost function and configurations,
+     * so can be called from different threads.
+     *  Note: you must first start optimization procedure otherwise IllegalArgumentException is thrown.
+     *  @param procedure - started optimization procedure to get results from
+     *  @throws IllegalArgumentException if optimization procedure hasn't been started.
+     *  @throws RuntimeException if some arguments for optimization is wrong
+     */
+    public void updateResults(OptimizationProcedure procedure) {
         try {
-            OneShot shotToAdd = new OneShot();
-            allStartsResults.put(shotToAdd.startPoint, shotToAdd);
+            OneShot shotToAdd = new OneShot(procedure);
+            addShot(shotToAdd);
         } catch (IllegalArgumentException ie) {
             throw new RuntimeException("Some arguments you enter are wrong: " + ie.getMessage()
                     + ". See initial message: \n" + ie.getMessage());
@@ -127,6 +145,49 @@ public class Result<T> {
                 : new LinkedHashMap<T[], Double>();
     }
 
+    /**
+     * Opens file with the full trajectory of the given start of the optimization procedure for reading.
+     * Is available only if {@link Config#setTrajectoryDirectory trajectory directory} is set.
+     * Note: the caller owns the returned file and must close it.
+     * @param startPoint - start point of the optimization procedure to determine particular start
+     * @return file with the full trajectory or null if it hasn't been written
+     */
+    public TrajectoryFile getTrajectoryFile(T[] startPoint) {
+        return (allStartsResults.get(startPoint) != null)
+                ? openTrajectoryFile(allStartsResults.get(startPoint))
+                : null;
+    }
+
+    /**
+     * Opens file with the full trajectory in the best start for reading.
+     * If both parameters byFinalDecision and byTime are true sorts by the best cost function first and then by time.
+     * Note: the caller owns the returned file and must close it.
+     * @param byFinalDecision if true sorts by the best cost function of the final decision
+     * @param  byTime if true sorts by the best time of the final decision
+     * @return file with the full trajectory of the best optimization start or null if it hasn't been written
+     */
+    public TrajectoryFile getTrajectoryFile(boolean byFinalDecision, boolean byTime) {
+        OneShot best = getSortedResults(byFinalDecision, byTime).peek();
+        return (best != null) ? openTrajectoryFile(best) : null;
+    }
+
+    /**
+     * Deletes files with the full trajectories of all the starts. This Result owns them, so they're kept
+     * until it's called, e.g. to be read after the JVM exits.
+     * Note: files opened by {@link Result#getTrajectoryFile} must be closed before.
+     * @throws UncheckedIOException if some file can't be deleted
+     */
+    public synchronized void deleteTrajectoryFiles() {
+        for (OneShot shot: allStartsResults.values()) {
+            if (shot.trajectoryPath == null) continue;
+            try {
+                Files.deleteIfExists(shot.trajectoryPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't delete trajectory file " + shot.trajectoryPath, e);
+            }
+        }
+    }
+
     /**
      * Visualizes the optimization procedure of the given start.
      * @param startPoint - start point of the optimization procedure to determine particular start
@@ -158,10 +219,10 @@ public class Result<T> {
      * @param byTime if true sorts by the best time of the final decision
      * @return all starts of optimization procedure sorted by given parameters
      */
-    public LinkedList<Result.OneShot> getSortedResults(boolean byFinalDecision, boolean byTime) {
-        LinkedList<Result.OneShot> allStarts = sortedResults.get(byFinalDecision, byTime);
+    public synchronized LinkedList<OneShot> getSortedResults(boolean byFinalDecision, boolean byTime) {
+        LinkedList<OneShot> allStarts = sortedResults.get(byFinalDecision, byTime);
         if (allStarts == null) {
-            allStarts = new LinkedList<Result.OneShot>(allStartsResults.values());
+            allStarts = new LinkedList<OneShot>(allStartsResults.values());
             if (!allStarts.isEmpty()) {
                 Collections.sort(allStarts, getResultsComparator(byFinalDecision, byTime));
                 sortedResults.put(byFinalDecision, byTime, allStarts);
@@ -184,18 +245,28 @@ public class Result<T> {
         return new Function<T[], Double>() {
             @Override
             public Double apply(T[] t) {
-                return optimizationProcedure.getCostFunction().apply(parser.converter.convertPoint(t));
+                return optimizationProcedure.getCostFunction().apply(parser.converter.convertToDoubleVector(t));
             }
         };
     }
 
    //------------------------------------------------------------------------------------------------------------------
 
-    private Comparator<Result.OneShot> getResultsComparator(final boolean byFinalDecision, final boolean byTime) {
+    // adds parsed shot and drops sorted views which have become stale
+    private synchronized void addShot(OneShot shot) {
+        allStartsResults.put(shot.startPoint, shot);
+        sortedResults.clear();
+    }
+
+    private TrajectoryFile openTrajectoryFile(OneShot shot) {
+        return (shot.trajectoryPath != null) ? TrajectoryFile.open(shot.trajectoryPath) : null;
+    }
+
+    private Comparator<OneShot> getResultsComparator(final boolean byFinalDecision, final boolean byTime) {
 
-        return new Comparator<Result.OneShot>() {
+        return new Comparator<OneShot>() {
             @Override
-            public int compare(Result.OneShot shot1, Result.OneShot shot2) {
+            public int compare(OneShot shot1, OneShot shot2) {
                 int result = 0;
 
                 Map.Entry<T[], Double> final1 = shot1.finalDecision;
@@ -218,13 +289,19 @@ public class Result<T> {
         public final T[] startPoint;
         public final Double time;
         public final Map.Entry<T[], Double> finalDecision;
-        public final LinkedHashMap<T[], Double> optimizationProcedureEvolution;
+        public final LinkedHashMap<T[], Double> optimizationProcedureEvolution; // points kept by retention policy
+        public final Path trajectoryPath; // file with all the points, null if they haven't been written
 
         public OneShot() {
-            this.finalDecision = parser.parseFinalDecision(); // if optimization procedure has't been started
-            this.startPoint = parser.parseStartPoint();
-            this.time = optimizationProcedure.getOptimizationTime();
-            this.optimizationProcedureEvolution = parser.parseOptimizationProcedureEvolution();
+            this(optimizationProcedure);
+        }
+
+        public OneShot(OptimizationProcedure procedure) {
+            this.finalDecision = parser.parseFinalDecision(procedure); // if optimization procedure has't been started
+            this.startPoint = parser.parseStartPoint(procedure);
+            this.time = procedure.getOptimizationTime();
+            this.optimizationProcedureEvolution = parser.parseOptimizationProcedureEvolution(procedure);
+            this.trajectoryPath = procedure.getTrajectoryPath();
         }
 
         public String print() {
@@ -255,21 +332,20 @@ public class Result<T> {
             this.converter = converter;
         }
 
-        public T[] parseStartPoint(){
-            return converter.convertPoint(optimizationProcedure.getProcedurePoints().peek());
+        public T[] parseStartPoint(OptimizationProcedure procedure){
+            return converter.convertPoint(procedure.getTrajectory().getFirst().point);
         }
 
-        public Map.Entry<T[], Double> parseFinalDecision(){
-            Tuple<Vector<Real>, Double> decisionToConvert = optimizationProcedure.getOptimizedDecision();
+        public Map.Entry<T[], Double> parseFinalDecision(OptimizationProcedure procedure){
+            Tuple<DoubleVector, Double> decisionToConvert = procedure.getOptimizedDecision();
             return new AbstractMap.SimpleEntry<T[], Double>(converter.convertPoint(decisionToConvert.x),
                     decisionToConvert.y);
         }
 
-        public LinkedHashMap<T[], Double> parseOptimizationProcedureEvolution() {
-            Function<Vector<Real>,Double> costFunc = optimizationProcedure.getCostFunction();
+        public LinkedHashMap<T[], Double> parseOptimizationProcedureEvolution(OptimizationProcedure procedure) {
             LinkedHashMap<T[], Double> optimizationProcedureEvolution = new LinkedHashMap<>();
-            for (Vector<Real> point: optimizationProcedure.getProcedurePoints())
-                optimizationProcedureEvolution.put(converter.convertPoint(point), costFunc.apply(point));
+            for (Trajectory.Record record: procedure.getTrajectory().getRecords())
+                optimizationProcedureEvolution.put(converter.convertPoint(record.point), record.cost);
             return optimizationProcedureEvolution;
         }
 
@@ -0,0 +1,111 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents {@link IterationListener} that delivers events to the slow listener asynchronously through the bounded buffer.
+ * Optimization procedure never waits for the listener: when the buffer is full events are dropped
+ * in accordance with {@link OverflowPolicy}, so memory spent on the buffer is bounded as well.
+ * Events are delivered in order by at most one task on the given executor at a time.
+ */
+public class BufferedIterationListener implements IterationListener {
+
+    private final IterationListener listener;
+    private final Executor executor;
+    private final OverflowPolicy policy;
+    private final ArrayBlockingQueue<IterationEvent> buffer;
+    private final Queue<OptimizationProcedure> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates new buffered listener
+     * @param listener - slow listener to deliver events to
+     * @param executor - executor to deliver events on
+     * @param capacity - maximum number of events waiting for delivery. Must be positive.
+     * @param policy - policy to drop events when the buffer is full
+     * @throws IllegalArgumentException if some argument is null or capacity isn't positive
+     */
+    public BufferedIterationListener(IterationListener listener, Executor executor, int capacity,
+                                     OverflowPolicy policy) {
+        if (listener == null || executor == null || policy == null)
+            throw new IllegalArgumentException("Arguments of BufferedIterationListener can't be null!");
+        if (capacity < 1) throw new IllegalArgumentException("Capacity of the buffer must be positive!");
+        this.listener = listener;
+        this.executor = executor;
+        this.policy = policy;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void onIteration(IterationEvent event) {
+        if (!buffer.offer(event)) {
+            dropped.incrementAndGet();
+            if (policy == OverflowPolicy.DROP_OLDEST) {
+                buffer.poll();
+                if (!buffer.offer(event)) dropped.incrementAndGet();
+            }
+        }
+        schedule();
+    }
+
+    @Override
+    public void onComplete(OptimizationProcedure procedure) {
+        completed.add(procedure);
+        schedule();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns number of the events dropped because the buffer was full
+     * @return number of the dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) return;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        });
+    }
+
+    // delivers all the buffered events, then completions
+    private void drain() {
+        try {
+            IterationEvent event;
+            while ((event = buffer.poll()) != null) listener.onIteration(event);
+            OptimizationProcedure procedure;
+            while ((procedure = completed.poll()) != null) listener.onComplete(procedure);
+        } finally {
+            scheduled.set(false);
+            if (!buffer.isEmpty() || !completed.isEmpty()) schedule();
+        }
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    /**
+     * Policy to drop events when the buffer is full
+     */
+    public enum OverflowPolicy {
+        DROP_NEWEST, // keeps buffered events, drops the new one
+        DROP_OLDEST // drops the earliest buffered event to keep the new one
+    }
+}
@@ -0,0 +1,31 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import ru.mipt.optimization.supportive.DoubleVector;
+
+/**
+ * Represents one iteration of the optimization procedure as it's reported to the {@link IterationListener}
+ */
+public class IterationEvent {
+    public final OptimizationProcedure source; // procedure that has conducted the iteration
+    public final int iteration; // 0 for the start point
+    public final DoubleVector point;
+    public final Double cost; // null if the point is out of the domain
+    public final double stepNorm; // norm of the difference with the previous point, 0 for the start point
+    public final double elapsedTime; // time in seconds since the start of the procedure
+
+    public IterationEvent(OptimizationProcedure source, int iteration, DoubleVector point, Double cost,
+                          double stepNorm, double elapsedTime) {
+        this.source = source;
+        this.iteration = iteration;
+        this.point = point;
+        this.cost = cost;
+        this.stepNorm = stepNorm;
+        this.elapsedTime = elapsedTime;
+    }
+
+    @Override
+    public String toString() {
+        return "IterationEvent: iteration = " + iteration + "; cost = " + cost
+                + "; step norm = " + stepNorm + "; elapsed time = " + elapsedTime;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+/**
+ * Listener of the iterations of the optimization procedure.
+ * Is called synchronously on the thread of the procedure, so slow listeners must be wrapped
+ * in {@link BufferedIterationListener} not to stall the optimization.
+ * To stop the procedure early use {@link OptimizationProcedure#requestStop()} of the event source.
+ */
+public interface IterationListener {
+
+    /**
+     * Is called after every iteration of the optimization procedure, including its start point
+     * @param event - iteration of the procedure
+     */
+    void onIteration(IterationEvent event);
+
+    /**
+     * Is called once the optimization procedure is finished
+     * @param procedure - finished optimization procedure
+     */
+    default void onComplete(OptimizationProcedure procedure) {}
+}
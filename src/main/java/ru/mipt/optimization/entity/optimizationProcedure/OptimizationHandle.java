@@ -0,0 +1,127 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import ru.mipt.optimization.supportive.DoubleVector;
+import ru.mipt.optimization.supportive.ParallelHelp;
+import ru.mipt.optimization.supportive.Tuple;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Represents the optimization procedure started asynchronously by
+ * {@link OptimizationProcedure#startAsync(DoubleVector, java.util.concurrent.Executor, long, TimeUnit)}.
+ * Allows to cancel the procedure and to read the best point found so far from any thread without locking.
+ * Cancelled or timed out procedure stops after the current iteration and keeps all the points found.
+ */
+public class OptimizationHandle {
+
+    private final OptimizationProcedure procedure;
+    private final CompletableFuture<OptimizationProcedure> future = new CompletableFuture<>();
+    private volatile boolean cancelled = false;
+
+    OptimizationHandle(OptimizationProcedure procedure) {
+        this.procedure = procedure;
+    }
+
+    /**
+     * Requests the procedure to stop after the current iteration.
+     * Has no effect on the status of the procedure which is already finished.
+     */
+    public void cancel() {
+        if (future.isDone()) return;
+        cancelled = true;
+        procedure.requestStop();
+    }
+
+    /**
+     * Returns the best point found so far with the value of the cost function in it
+     * @return the best point found so far or null if the procedure hasn't started yet
+     */
+    public Tuple<DoubleVector, Double> getBestSoFar() {
+        return procedure.getBestSoFar();
+    }
+
+    /**
+     * Waits for the procedure to finish
+     * @return finished procedure
+     * @throws RuntimeException if the procedure has failed or waiting has been interrupted
+     */
+    public OptimizationProcedure await() {
+        return ParallelHelp.await(future);
+    }
+
+    /**
+     * Waits for the procedure to finish at most the given time and returns the best point found by then.
+     * The procedure isn't stopped if the time is out.
+     * @param timeout - maximum time to wait
+     * @param unit - unit of the timeout
+     * @return the best point found with the value of the cost function in it
+     * @throws RuntimeException if the procedure has failed or waiting has been interrupted
+     */
+    public Tuple<DoubleVector, Double> await(long timeout, TimeUnit unit) {
+        try {
+            future.get(timeout, unit);
+        } catch (TimeoutException te) {
+            return getBestSoFar();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Waiting for the optimization procedure has been interrupted", ie);
+        } catch (ExecutionException ee) {
+            ParallelHelp.await(future); // future is done, rethrows its failure in the common way
+        }
+        return getBestSoFar();
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Returns state of the procedure
+     * @return state of the procedure
+     */
+    public Status getStatus() {
+        if (!future.isDone()) return Status.RUNNING;
+        if (future.isCompletedExceptionally()) return Status.FAILED;
+        if (cancelled && procedure.isStoppedOnRequest()) return Status.CANCELLED;
+        if (procedure.isDeadlineExceeded()) return Status.TIMED_OUT;
+        return Status.COMPLETED;
+    }
+
+    /**
+     * Returns future completed with the procedure once it's finished
+     * @return future of the procedure
+     */
+    public CompletableFuture<OptimizationProcedure> getFuture() {
+        return future;
+    }
+
+    public OptimizationProcedure getProcedure() {
+        return procedure;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    void complete() {
+        future.complete(procedure);
+    }
+
+    void fail(Throwable failure) {
+        future.completeExceptionally(failure);
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    /**
+     * State of the asynchronously started procedure
+     */
+    public enum Status {
+        RUNNING, // isn't finished yet
+        COMPLETED, // has stopped by its stop criteria
+        CANCELLED, // has been stopped by cancel
+        TIMED_OUT, // has been stopped by the deadline
+        FAILED // has thrown an exception
+    }
+}
@@ -4,12 +4,17 @@ import org.jscience.mathematics.number.Real;
 import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.algorithms.VaryingParams;
 import ru.mipt.optimization.entity.inOut.Config;
-import ru.mipt.optimization.entity.typeWrapper.FieldWrapper;
 import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
+import ru.mipt.optimization.supportive.DoubleVector;
+import ru.mipt.optimization.supportive.MathHelp;
 import ru.mipt.optimization.supportive.Tuple;
 import ru.mipt.optimization.algorithms.Algorithm;
 
-import java.util.LinkedList;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Represents an optimization procedure for the given cost function by the given algorithm.
@@ -24,7 +29,12 @@ public class OptimizationProcedure {
     private final Config config; // configurations (selected optimization algorithm and condition to stop optimization procedure)
     private final CostFunction costFunction; // objective (cost) function to optimize
 
-    private LinkedList<Vector<Real>> procedurePoints = new LinkedList<>(); // decision points of optimization procedure
+    private final Trajectory trajectory; // decision points of optimization procedure
+    private volatile boolean stopRequested = false;
+    private volatile long deadline = 0; // System.nanoTime() to stop at, 0 if there is no deadline
+    private volatile boolean deadlineExceeded = false;
+    private volatile boolean stoppedOnRequest = false; // stop request has been seen by the running loop
+    private volatile Trajectory.Record bestSoFar; // published for reading from other threads
 
 
     /**
@@ -45,6 +55,7 @@ public class OptimizationProcedure {
 
         this.config = config;
         this.costFunction = costFunction;
+        this.trajectory = new Trajectory(config.getTrajectoryRetention());
     }
 
     /**
@@ -54,15 +65,74 @@ public class OptimizationProcedure {
      * @throws IllegalArgumentException if given startPoint is not in the domain
      * of the {@link ru.mipt.optimization.entity.optimizationProcedure.OptimizationProcedure#costFunction}
      */
+    public void start(DoubleVector startPoint) {
+        stopRequested = false;
+        deadline = 0;
+        run(startPoint);
+    }
+
+    /**
+     * Starts optimization procedure asynchronously on the given executor.
+     * Note: procedure must not be started again until it's finished.
+     * @param startPoint point from which optimization algorithm starts
+     * @param executor - executor to run the procedure on
+     * @param timeout - wall-clock time since this call after which the procedure is stopped.
+     *                If not positive the procedure runs until its stop criteria.
+     * @param unit - unit of the timeout
+     * @return handle to cancel the procedure and to read its best point so far
+     */
+    public OptimizationHandle startAsync(final DoubleVector startPoint, Executor executor, long timeout, TimeUnit unit) {
+        return startAsync(new Supplier<DoubleVector>() {
+            @Override
+            public DoubleVector get() {
+                return startPoint;
+            }
+        }, executor, timeout, unit);
+    }
+
+    /**
+     * Starts optimization procedure asynchronously on the given executor from the start point obtained on it,
+     * so that preparing of the start point, e.g. its conversion, doesn't block the calling thread.
+     * Handle is failed if the start point can't be obtained or isn't in the domain.
+     * See {@link OptimizationProcedure#startAsync(DoubleVector, Executor, long, TimeUnit)} for other parameters.
+     * @param startPoint - supplier of the point from which optimization algorithm starts
+     * @return handle to cancel the procedure and to read its best point so far
+     */
+    public OptimizationHandle startAsync(final Supplier<DoubleVector> startPoint, Executor executor, long timeout,
+                                         TimeUnit unit) {
+        final OptimizationHandle handle = new OptimizationHandle(this);
+        stopRequested = false;
+        deadline = (timeout > 0) ? Math.max(1, System.nanoTime() + unit.toNanos(timeout)) : 0;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    OptimizationProcedure.this.run(startPoint.get());
+                    handle.complete();
+                } catch (Throwable t) {
+                    handle.fail(t);
+                }
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Adapter of the {@link OptimizationProcedure#start(DoubleVector)} for the start point given as jscience vector
+     * @param startPoint point from which optimization algorithm starts
+     * @throws IllegalArgumentException if given startPoint is not in the domain
+     * of the {@link ru.mipt.optimization.entity.optimizationProcedure.OptimizationProcedure#costFunction}
+     */
     public void start(Vector<Real> startPoint) {
-        if (costFunction.apply(startPoint) == null) throw new IllegalArgumentException("Start point must be in the domain " +
-                "of the given cost function! ");
-        procedurePoints.clear();
-        procedurePoints.add(startPoint);
-        this.algoVarParams = config.getAlgorithmVaryingParamsCongig();
-        timer.start();
-        optimize();
-        timer.stop();
+        start(DoubleVector.valueOf(startPoint));
+    }
+
+    /**
+     * Requests the running optimization procedure to stop after the current iteration,
+     * e.g. from the {@link IterationListener}. Last found point is the optimized decision.
+     */
+    public void requestStop() {
+        stopRequested = true;
     }
 
     /**
@@ -70,29 +140,65 @@ public class OptimizationProcedure {
      * i.e. the maximum of {@link OptimizationProcedure#costFunction costFunction}
      * after applying optimization algorithm from {@link OptimizationProcedure#config configurations}.
      * Note: it is necessary to start optimization procedure first,
-     * i.e. to use {@link OptimizationProcedure#start(Vector)}  method.
+     * i.e. to use {@link OptimizationProcedure#start(DoubleVector)}  method.
      * @return {@link Tuple} of found optimal point and value of objective function in this point
      * @throws RuntimeException if optimization procedure has not been started
      */
-    public Tuple<Vector<Real>, Double> getOptimizedDecision() {
-        if (procedurePoints.isEmpty()) throw new IllegalArgumentException("Can't get optimal decision without starting optimization procedure." +
+    public Tuple<DoubleVector, Double> getOptimizedDecision() {
+        if (trajectory.isEmpty()) throw new IllegalArgumentException("Can't get optimal decision without starting optimization procedure." +
                 " Use method start(X startPoint) first");
-        return new Tuple<Vector<Real>, Double>(procedurePoints.getLast(),
-                costFunction.apply(procedurePoints.getLast()));
+        Trajectory.Record last = trajectory.getRecent(0);
+        return new Tuple<DoubleVector, Double>(last.point, last.cost);
     }
 
 
-    //optimizes costFunction using algorithm and stopCriteria
+    // runs the procedure from the given start point until it stops
+    private void run(DoubleVector startPoint) {
+        Double startCost = costFunction.apply(startPoint);
+        if (startCost == null) throw new IllegalArgumentException("Start point must be in the domain " +
+                "of the given cost function! ");
+        trajectory.clear();
+        if (trajectory.getSink() != null) trajectory.getSink().close();
+        trajectory.setSink((config.getTrajectoryDirectory() != null)
+                ? TrajectoryFile.createIn(config.getTrajectoryDirectory(), costFunction.getDimension())
+                : null);
+        trajectory.add(startPoint, startCost);
+        bestSoFar = trajectory.getBest();
+        deadlineExceeded = false;
+        stoppedOnRequest = false;
+        this.algoVarParams = config.getAlgorithmVaryingParamsCongig();
+        timer.start();
+        try {
+            notifyIteration(startPoint, 0);
+            optimize();
+        } finally { // failed run is also finished: its time, file and listeners are completed
+            timer.stop();
+            if (trajectory.getSink() != null) trajectory.getSink().close();
+            for (IterationListener listener: config.getIterationListeners()) listener.onComplete(this);
+        }
+    }
+
+    //optimizes costFunction using algorithm and stopCriteria iteratively until stop criteria is achieved
     private void optimize() {
 
-        if (procedurePoints.isEmpty())
+        if (trajectory.isEmpty())
             throw new IllegalArgumentException("Can't optimize without start point. Use method start(Vector startPoint)");
 
-        Vector<Real> curPoint = procedurePoints.getLast();
-        Vector<Real> nextPoint = config.getAlgorithm().conductOneIteration(curPoint, costFunction, algoVarParams);
-        if (!isStuck()) {
-            procedurePoints.add(nextPoint);
-            if (!config.getAlgorithm().getStopCriteria().isAchieved(this)) optimize();
+        boolean achieved = false;
+        while (!achieved && !isDeadlineReached()) {
+            if (stopRequested) {
+                stoppedOnRequest = true;
+                break;
+            }
+            DoubleVector curPoint = trajectory.getLast();
+            algoVarParams.setCurrentRecord(trajectory.getRecent(0));
+            DoubleVector nextPoint = config.getAlgorithm().conductOneIteration(curPoint, costFunction, algoVarParams);
+            if (isStuck()) break;
+            Double nextCost = algoVarParams.getNextCost(nextPoint); // evaluated by the iteration if known
+            trajectory.add(nextPoint, (nextCost != null) ? nextCost : costFunction.apply(nextPoint));
+            bestSoFar = trajectory.getBest();
+            notifyIteration(nextPoint, MathHelp.getDistance(nextPoint, curPoint));
+            achieved = config.getAlgorithm().getStopCriteria().isAchieved(this);
         }
 
     }
@@ -100,8 +206,54 @@ public class OptimizationProcedure {
     //---------------------------------------- getters -----------------------------------------------------------------
 
 
-    public LinkedList<Vector<Real>> getProcedurePoints() {
-        return procedurePoints;
+    /**
+     * Returns decision points of the optimization procedure kept by the
+     * {@link ru.mipt.optimization.entity.inOut.Config#getTrajectoryRetention() retention policy}
+     * @return kept decision points in order of the iterations
+     */
+    public List<DoubleVector> getProcedurePoints() {
+        return trajectory.getPoints();
+    }
+
+    /**
+     * Returns the best point found so far with the value of the cost function in it.
+     * Can be called from any thread while the procedure is running.
+     * @return the best point found so far or null if the procedure hasn't been started
+     */
+    public Tuple<DoubleVector, Double> getBestSoFar() {
+        Trajectory.Record best = bestSoFar;
+        return (best == null) ? null : new Tuple<DoubleVector, Double>(best.point, best.cost);
+    }
+
+    /**
+     * Returns true if the last start has been stopped by its deadline
+     * @return true if the last start has been stopped by its deadline
+     */
+    public boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    /**
+     * Returns true if the last start has been stopped by {@link OptimizationProcedure#requestStop()}
+     * before its stop criteria were achieved
+     * @return true if the stop request has been seen by the last start
+     */
+    public boolean isStoppedOnRequest() {
+        return stoppedOnRequest;
+    }
+
+    public Trajectory getTrajectory() {
+        return trajectory;
+    }
+
+    /**
+     * Returns path of the file with all the decision points of the last start.
+     * File is closed once the start is finished, so it's read by {@link TrajectoryFile#open(java.nio.file.Path)}.
+     * @return path of the file with all the decision points or null if
+     * {@link ru.mipt.optimization.entity.inOut.Config#getTrajectoryDirectory() trajectory directory} isn't set
+     */
+    public Path getTrajectoryPath() {
+        return (trajectory.getSink() != null) ? trajectory.getSink().getPath() : null;
     }
 
     public double getOptimizationTime() {
@@ -130,15 +282,30 @@ public class OptimizationProcedure {
 
     //------------------------------------------------------------------------------------------------------------------
 
+    private boolean isDeadlineReached() {
+        long d = deadline;
+        if (d == 0 || System.nanoTime() - d < 0) return false;
+        deadlineExceeded = true;
+        return true;
+    }
+
+    // reports last added point to the listeners
+    private void notifyIteration(DoubleVector point, double stepNorm) {
+        List<IterationListener> listeners = config.getIterationListeners();
+        if (listeners.isEmpty()) return;
+        IterationEvent event = new IterationEvent(this, trajectory.size() - 1, point, trajectory.getRecent(0).cost,
+                stepNorm, timer.getElapsedTime());
+        for (IterationListener listener: listeners) listener.onIteration(event);
+    }
+
     // checks if optimization procedure is stuck
     private boolean isStuck(){
-        int procedurePointsSize = procedurePoints.size();
-        if (procedurePointsSize < 10) return false;
+        if (trajectory.size() < Trajectory.RECENT_NUM) return false;
 
         boolean res = true;
         //if 10 last elements are equal return true
-        for (int i = 1; i<10; i++)
-        if (!procedurePoints.get(procedurePointsSize-i).equals(procedurePoints.get(procedurePointsSize-i-1)) )
+        for (int i = 0; i<Trajectory.RECENT_NUM-1; i++)
+        if (!trajectory.getRecent(i).point.equals(trajectory.getRecent(i+1).point) )
             res = false;
         return res;
     }
@@ -160,6 +327,10 @@ public class OptimizationProcedure {
             endTime = System.nanoTime();
         }
 
+        public double getElapsedTime() {
+            return (double) (System.nanoTime() - startTime)/1000000000;
+        }
+
         public double getMemoredTime() {
             return (startTime != 0 && endTime != 0) ? (double) (endTime - startTime)/1000000000 : 0;
         }
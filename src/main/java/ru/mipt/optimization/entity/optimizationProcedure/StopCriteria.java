@@ -6,8 +6,6 @@ package ru.mipt.optimization.entity.optimizationProcedure;
  */
 public abstract class StopCriteria {
 
-    private static final int MAX_ITERATIONS_NUM = 200;
-
     protected final static double DEFAULT_ERROR = 0.1;
 
     protected double error = DEFAULT_ERROR;
@@ -20,13 +18,14 @@ public abstract class StopCriteria {
      */
     public boolean isAchieved(OptimizationProcedure optimizationProcedure) {
         if (optimizationProcedure == null) throw new IllegalArgumentException("Can't check null optimization procedure!");
-        int iterationsNumber = optimizationProcedure.getProcedurePoints().size();
+        int iterationsNumber = optimizationProcedure.getTrajectory().size();
         if (iterationsNumber == 0 || iterationsNumber == 1) return false;
-        return specifiedCriteria(optimizationProcedure) || basicCriteria(iterationsNumber);
+        return specifiedCriteria(optimizationProcedure)
+                || basicCriteria(iterationsNumber, optimizationProcedure.getConfigurations().getMaxIterationsNumber());
     }
 
-    private boolean basicCriteria(int iterationsNumber) {
-        return iterationsNumber >= MAX_ITERATIONS_NUM;
+    private boolean basicCriteria(int iterationsNumber, int maxIterationsNumber) {
+        return iterationsNumber >= maxIterationsNumber;
     }
 
     /**
@@ -0,0 +1,266 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.CostFunction;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents the trajectory of the optimization procedure, i.e. its decision points with their costs.
+ * Last {@link Trajectory#RECENT_NUM} points (or more, if retention keeps more) are kept in the ring buffer
+ * with constant-time access, so that stop criteria and stagnation checks don't depend on the length of the run.
+ * Older points are kept in accordance with the {@link Retention} policy,
+ * the start point and the best point are always kept.
+ * If the {@link TrajectoryFile sink} is set all the points are also written off-heap to it.
+ */
+public class Trajectory {
+
+    public static final int RECENT_NUM = 10;
+
+    private final Retention retention;
+    private final Record[] recent; // ring buffer of the last records
+    private final List<Record> retained = new ArrayList<>(); // records evicted from the ring buffer and kept by retention
+    private int head = 0; // index of the next record to write in the ring buffer
+    private int size = 0; // number of all the records ever added
+    private Record first;
+    private Record best;
+    private TrajectoryFile sink; // null if points aren't written off-heap
+
+    /**
+     * Creates empty trajectory
+     * @param retention - policy to keep the points older than the recent ones
+     * @throws IllegalArgumentException if retention is null
+     */
+    public Trajectory(Retention retention) {
+        if (retention == null) throw new IllegalArgumentException("Retention can't be null!");
+        this.retention = retention;
+        this.recent = new Record[(retention.kind == Retention.Kind.LAST) ? Math.max(RECENT_NUM, retention.number)
+                : RECENT_NUM];
+    }
+
+    /**
+     * Adds next decision point of the optimization procedure
+     * @param point - decision point
+     * @param cost - value of the cost function in the point, null if the point is out of the domain
+     */
+    public void add(DoubleVector point, Double cost) {
+        Record record = new Record(size, point, cost);
+        Record evicted = recent[head];
+        if (evicted != null && retention.keeps(evicted)) retained.add(evicted);
+
+        recent[head] = record;
+        head = (head + 1) % recent.length;
+        size++;
+        if (first == null) first = record;
+        if (cost != null && (best == null || cost < best.cost)) best = record;
+        if (sink != null) sink.append(point, cost);
+    }
+
+    /**
+     * Removes all the points
+     */
+    public void clear() {
+        for (int i = 0; i < recent.length; i++) recent[i] = null;
+        retained.clear();
+        head = 0;
+        size = 0;
+        first = null;
+        best = null;
+    }
+
+    /**
+     * Returns one of the recent records
+     * @param fromEnd - number of the record from the end, 0 for the last one.
+     *                Must be less than min(size, {@link Trajectory#RECENT_NUM})
+     * @return recent record
+     * @throws IndexOutOfBoundsException if the record isn't kept in the ring buffer
+     */
+    public Record getRecent(int fromEnd) {
+        if (fromEnd < 0 || fromEnd >= Math.min(size, recent.length))
+            throw new IndexOutOfBoundsException("Record " + fromEnd + " from the end isn't among the recent ones");
+        return recent[(head - 1 - fromEnd + recent.length) % recent.length];
+    }
+
+    /**
+     * Returns last decision point
+     * @return last decision point or null if trajectory is empty
+     */
+    public DoubleVector getLast() {
+        return (size == 0) ? null : getRecent(0).point;
+    }
+
+    /**
+     * Returns all the kept records in order of the iterations
+     * @return kept records
+     */
+    public List<Record> getRecords() {
+        List<Record> res = new ArrayList<>(retained.size() + recent.length + 2);
+        if (first != null) res.add(first);
+        res.addAll(retained);
+        if (best != null) res.add(best);
+        for (int i = Math.min(size, recent.length) - 1; i >= 0; i--) res.add(getRecent(i));
+
+        Collections.sort(res, new Comparator<Record>() {
+            @Override
+            public int compare(Record o1, Record o2) {
+                return Integer.compare(o1.iteration, o2.iteration);
+            }
+        });
+        List<Record> unique = new ArrayList<>(res.size());
+        for (Record record: res)
+            if (unique.isEmpty() || unique.get(unique.size() - 1).iteration != record.iteration) unique.add(record);
+        return unique;
+    }
+
+    /**
+     * Returns all the kept decision points in order of the iterations
+     * @return kept decision points
+     */
+    public List<DoubleVector> getPoints() {
+        List<DoubleVector> res = new ArrayList<>();
+        for (Record record: getRecords()) res.add(record.point);
+        return res;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns number of all the points ever added, including not kept ones
+     * @return number of all the points ever added
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Record getFirst() {
+        return first;
+    }
+
+    public Record getBest() {
+        return best;
+    }
+
+    public Retention getRetention() {
+        return retention;
+    }
+
+    public TrajectoryFile getSink() {
+        return sink;
+    }
+
+    /**
+     * Sets file to write all the subsequently added points in
+     * @param sink - file opened for writing. If null points aren't written off-heap.
+     */
+    public void setSink(TrajectoryFile sink) {
+        this.sink = sink;
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    /**
+     * Represents one decision point of the trajectory with the value and the gradient of the cost function in it,
+     * so that the algorithm and stop criteria don't evaluate the cost function again in the same point.
+     */
+    public static class Record {
+        public final int iteration; // 0 for the start point
+        public final DoubleVector point;
+        public final Double cost; // null if the point is out of the domain
+        private DoubleVector gradient; // null until it's calculated
+
+        private Record(int iteration, DoubleVector point, Double cost) {
+            this.iteration = iteration;
+            this.point = point;
+            this.cost = cost;
+        }
+
+        /**
+         * Returns gradient of the cost function in the point, calculating it only the first time
+         * @param function - cost function of the trajectory
+         * @return gradient of the cost function in the point
+         * @throws IllegalArgumentException if the point is out of the domain of the cost function
+         */
+        public DoubleVector getGradient(CostFunction function) {
+            if (gradient == null) gradient = function.getGradient(point, cost);
+            return gradient;
+        }
+
+        /**
+         * Returns gradient of the cost function in the point if it has been calculated
+         * @return gradient of the cost function in the point or null if it hasn't been calculated
+         */
+        public DoubleVector getGradient() {
+            return gradient;
+        }
+    }
+
+    /**
+     * Represents policy to keep the points older than the recent ones
+     */
+    public static class Retention {
+        private enum Kind {ALL, LAST, EVERY_NTH}
+
+        private final Kind kind;
+        private final int number;
+
+        private Retention(Kind kind, int number) {
+            this.kind = kind;
+            this.number = number;
+        }
+
+        /**
+         * Returns policy to keep all the points
+         * @return policy to keep all the points
+         */
+        public static Retention keepAll() {
+            return new Retention(Kind.ALL, 0);
+        }
+
+        /**
+         * Returns policy to keep only last points (and the start and the best ones)
+         * @param k - number of the last points to keep. Not less than {@link Trajectory#RECENT_NUM} points are kept anyway.
+         * @return policy to keep only last points
+         * @throws IllegalArgumentException if k isn't positive
+         */
+        public static Retention keepLast(int k) {
+            if (k < 1) throw new IllegalArgumentException("Number of the points to keep must be positive!");
+            return new Retention(Kind.LAST, k);
+        }
+
+        /**
+         * Returns policy to keep every n-th point (and the start, the best and the recent ones)
+         * @param n - period of the points to keep
+         * @return policy to keep every n-th point
+         * @throws IllegalArgumentException if n isn't positive
+         */
+        public static Retention keepEveryNth(int n) {
+            if (n < 1) throw new IllegalArgumentException("Period of the points to keep must be positive!");
+            return new Retention(Kind.EVERY_NTH, n);
+        }
+
+        // returns true if the record evicted from the recent ones must be kept
+        private boolean keeps(Record record) {
+            switch (kind) {
+                case ALL: return true;
+                case EVERY_NTH: return record.iteration % number == 0;
+                default: return false;
+            }
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case ALL: return "keep all";
+                case LAST: return "keep last " + number;
+                default: return "keep every " + number + "th";
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the trajectory of the optimization procedure stored off-heap in the memory-mapped file.
+ * Every decision point is written with the value of the cost function in it as it's added,
+ * so full trajectories of long runs in high dimensions don't occupy the heap
+ * and can be read back (also after the JVM exits) by {@link TrajectoryFile#open(Path)}.
+ * Elements and costs are read directly from the mapped memory without copying the whole point.
+ *
+ * File layout: header (magic, dimension, number of points), then points one by one, each as
+ * its cost (NaN if the point is out of the domain) followed by its elements, all as doubles.
+ * Number of points in the header is updated after every point, so the file is consistent at any moment.
+ * Written region is mapped in steps growing up to the chunk size, and the file is cut to its points on close.
+ * Mappings are released as soon as they're dropped, since the mapped file can't be cut or deleted on some platforms.
+ */
+public class TrajectoryFile implements Closeable {
+
+    private static final int MAGIC = 0x4F505452;
+    private static final int HEADER_BYTES = 16; // magic int, dimension int, number of points long
+    private static final long CHUNK_BYTES = 64L << 20; // size of one mapped region
+    private static final long FIRST_STEP_BYTES = 64L << 10; // size of the first mapping of the written region
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean writable;
+    private final int dimension;
+    private final int recordBytes;
+    private final int recordsPerChunk;
+    private MappedByteBuffer header; // null once closed
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long size;
+    private boolean closed = false;
+
+    private TrajectoryFile(Path path, FileChannel channel, boolean writable, int dimension, long size)
+            throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.writable = writable;
+        this.dimension = dimension;
+        this.recordBytes = 8 * (dimension + 1);
+        this.recordsPerChunk = (int) Math.max(1, CHUNK_BYTES / recordBytes);
+        this.header = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                0, HEADER_BYTES);
+        this.size = size;
+    }
+
+    /**
+     * Creates new empty file to write the trajectory of the given dimension in. Existing file is overwritten.
+     * @param path - path of the file
+     * @param dimension - dimension of the points. Must be positive.
+     * @return file opened for writing and reading
+     * @throws IllegalArgumentException if dimension isn't positive
+     * @throws UncheckedIOException if the file can't be created
+     */
+    public static TrajectoryFile create(Path path, int dimension) {
+        if (dimension < 1) throw new IllegalArgumentException("Dimension of the trajectory must be positive!");
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            TrajectoryFile file = new TrajectoryFile(path, channel, true, dimension, 0);
+            file.header.putInt(0, MAGIC).putInt(4, dimension).putLong(8, 0);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't create trajectory file " + path, e);
+        }
+    }
+
+    /**
+     * Creates new empty file in the given directory to write the trajectory of the given dimension in
+     * @param directory - directory to create the file in
+     * @param dimension - dimension of the points. Must be positive.
+     * @return file opened for writing and reading
+     * @throws UncheckedIOException if the file can't be created
+     */
+    public static TrajectoryFile createIn(Path directory, int dimension) {
+        try {
+            return create(Files.createTempFile(directory, "trajectory-", ".bin"), dimension);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't create trajectory file in " + directory, e);
+        }
+    }
+
+    /**
+     * Opens earlier written file of the trajectory for reading
+     * @param path - path of the file
+     * @return file opened for reading
+     * @throws IllegalArgumentException if the file isn't a trajectory file
+     * @throws UncheckedIOException if the file can't be read
+     */
+    public static TrajectoryFile open(Path path) {
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            if (channel.size() < HEADER_BYTES) {
+                channel.close();
+                throw new IllegalArgumentException("File " + path + " isn't a trajectory file!");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            int magic = header.getInt(0), dimension = header.getInt(4);
+            long size = header.getLong(8);
+            unmap(header);
+            if (magic != MAGIC || dimension < 1) {
+                channel.close();
+                throw new IllegalArgumentException("File " + path + " isn't a trajectory file!");
+            }
+            return new TrajectoryFile(path, channel, false, dimension, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't open trajectory file " + path, e);
+        }
+    }
+
+    /**
+     * Writes next decision point of the trajectory
+     * @param point - decision point of the trajectory dimension
+     * @param cost - value of the cost function in the point, null if the point is out of the domain
+     * @throws IllegalStateException if the file is opened only for reading
+     * @throws IllegalArgumentException if dimension of the point is wrong
+     */
+    public synchronized void append(DoubleVector point, Double cost) {
+        if (!writable) throw new IllegalStateException("Trajectory file is opened only for reading!");
+        if (point.getDimension() != dimension)
+            throw new IllegalArgumentException("Dimension of the given point is wrong!");
+
+        MappedByteBuffer chunk = chunkOf(size);
+        int offset = offsetOf(size);
+        chunk.putDouble(offset, (cost == null) ? Double.NaN : cost);
+        for (int i = 0; i < dimension; i++)
+            chunk.putDouble(offset + 8 * (i + 1), point.get(i));
+        size++;
+        header.putLong(8, size);
+    }
+
+    /**
+     * Returns value of the cost function in the point with the given index
+     * @param index - index of the point, 0 for the start point
+     * @return value of the cost function or NaN if the point is out of the domain
+     */
+    public synchronized double getCost(long index) {
+        checkIndex(index);
+        return chunkOf(index).getDouble(offsetOf(index));
+    }
+
+    /**
+     * Returns element of the point with the given index
+     * @param index - index of the point, 0 for the start point
+     * @param element - index of the element
+     * @return element of the point
+     */
+    public synchronized double get(long index, int element) {
+        checkIndex(index);
+        if (element < 0 || element >= dimension)
+            throw new IndexOutOfBoundsException("Element " + element + " is out of the dimension " + dimension);
+        return chunkOf(index).getDouble(offsetOf(index) + 8 * (element + 1));
+    }
+
+    /**
+     * Returns copy of the point with the given index
+     * @param index - index of the point, 0 for the start point
+     * @return point with the given index
+     */
+    public synchronized DoubleVector getPoint(long index) {
+        checkIndex(index);
+        MappedByteBuffer chunk = chunkOf(index);
+        int offset = offsetOf(index);
+        double[] point = new double[dimension];
+        for (int i = 0; i < dimension; i++)
+            point[i] = chunk.getDouble(offset + 8 * (i + 1));
+        return DoubleVector.wrap(point);
+    }
+
+    /**
+     * Forces written points to the storage
+     */
+    public synchronized void flush() {
+        if (!writable || closed) return;
+        header.force();
+        for (MappedByteBuffer chunk: chunks) chunk.force();
+    }
+
+    /**
+     * Flushes written points and cuts the file to them. Mapped regions are released, so points can't be read anymore.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        flush();
+        closed = true;
+        for (MappedByteBuffer chunk: chunks) unmap(chunk);
+        chunks.clear();
+        unmap(header);
+        header = null;
+        try {
+            if (writable) channel.truncate(HEADER_BYTES + size * recordBytes);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't close trajectory file " + path, e);
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Point " + index + " is out of the trajectory of size " + size);
+    }
+
+    private int offsetOf(long index) {
+        return (int) (index % recordsPerChunk) * recordBytes;
+    }
+
+    // returns mapped region containing the point with the given index, mapping or growing it if necessary.
+    // Written chunk is remapped with the doubled length, so the file grows in steps and not by the whole chunk.
+    private MappedByteBuffer chunkOf(long index) {
+        if (closed) throw new IllegalStateException("Trajectory file " + path + " is closed!");
+        int chunkIndex = (int) (index / recordsPerChunk);
+        long chunkBytes = (long) recordsPerChunk * recordBytes;
+        try {
+            while (chunks.size() <= chunkIndex) {
+                long position = HEADER_BYTES + (long) chunks.size() * chunkBytes;
+                long length = writable
+                        ? Math.min(chunkBytes, Math.max(recordBytes, FIRST_STEP_BYTES / recordBytes * recordBytes))
+                        : Math.min(chunkBytes, channel.size() - position);
+                chunks.add(map(position, length));
+            }
+            MappedByteBuffer chunk = chunks.get(chunkIndex);
+            int end = offsetOf(index) + recordBytes;
+            if (writable && chunk.capacity() < end) {
+                long position = HEADER_BYTES + (long) chunkIndex * chunkBytes;
+                MappedByteBuffer grown = map(position, Math.min(chunkBytes, Math.max(end, 2L * chunk.capacity())));
+                chunks.set(chunkIndex, grown);
+                unmap(chunk);
+                chunk = grown;
+            }
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't map trajectory file " + path, e);
+        }
+    }
+
+    private MappedByteBuffer map(long position, long length) throws IOException {
+        return channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    // releases the mapping at once and not when the buffer is collected. The buffer mustn't be accessed then.
+    // The mapping is left to the garbage collector if the JVM doesn't allow it
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+        } catch (NoSuchMethodException e) { // before Java 9 the cleaner is taken from the buffer itself
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // left to the garbage collector
+            }
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // left to the garbage collector
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.entity.typeWrapper.Dual;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.function.Function;
+
+/**
+ * Represents the cost function written over {@link Dual} numbers.
+ * Gradient is calculated by forward-mode automatic differentiation in one pass of the function,
+ * partial and directional derivatives - in one pass with the single derivative,
+ * so neither finite-difference error nor O(n) evaluations of the function are paid.
+ * Domain of the function is unknown and is searched the same way as for {@link UndeterminateCostFunc}.
+ */
+public class AutoDiffCostFunc extends DeterminateCostFunc {
+
+    private final Function<Dual[], Dual> dualRule; // rule for mapping argument in its Dual cost
+
+    /**
+     * Creates new AutoDiffCostFunc
+     * @param dualRule - rule for mapping X in its Dual cost, returns null if X is out of the domain
+     * @param dimension dimension of given function
+     * @param config - configurations, including interval of domain search vision and the search range
+     * @throws IllegalArgumentException if dualRule or config is null
+     */
+    public AutoDiffCostFunc(Function<Dual[], Dual> dualRule, int dimension, Config config) {
+        super(createFunctionRule(dualRule), createGradientRule(dualRule), dimension, config);
+        this.dualRule = dualRule;
+    }
+
+    @Override
+    public double getPartialDerivative(DoubleVector x, int dir) {
+        if (dir < 0 || dir > x.getDimension()-1)
+            throw new IllegalArgumentException("Given direction isn't within its bounds!");
+        return getDirectionalDerivative(x, DoubleVector.twin(x.getDimension(), 0).plus(dir, 1));
+    }
+
+    /**
+     * Returns derivative of this cost function in the given point in the given direction
+     * @param x - point in the domain of the cost function to calculate derivative in
+     * @param direction - direction vector of the derivative
+     * @return derivative of this cost function in the given point in the given direction
+     * @throws IllegalArgumentException if the given point is out of the domain of the cost function
+     */
+    public double getDirectionalDerivative(DoubleVector x, DoubleVector direction) {
+        checkDimension(x);
+
+        Dual res = dualRule.apply(Dual.directionalSeed(x, direction));
+        if (res == null)
+            throw new IllegalArgumentException("Given point x is out of the domain. Can't calculate derivative!");
+        return res.getDerivative(0);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public Function<Dual[], Dual> getDualRule() {
+        return dualRule;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private static Function<DoubleVector, Double> createFunctionRule(final Function<Dual[], Dual> dualRule) {
+        if (dualRule == null) throw new IllegalArgumentException("function rule can't be null");
+        return new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector point) {
+                Dual res = dualRule.apply(Dual.constants(point));
+                return (res == null) ? null : res.doubleValue();
+            }};
+    }
+
+    private static Function<DoubleVector, DoubleVector> createGradientRule(final Function<Dual[], Dual> dualRule) {
+        return new Function<DoubleVector, DoubleVector>() {
+            @Override
+            public DoubleVector apply(DoubleVector point) {
+                Dual res = dualRule.apply(Dual.gradientSeed(point));
+                return (res == null) ? null : res.getDerivatives(point.getDimension());
+            }};
+    }
+}
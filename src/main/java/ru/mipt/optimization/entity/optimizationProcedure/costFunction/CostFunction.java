@@ -1,26 +1,34 @@
 package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.function.Function;
 
 import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.DenseVector;
 import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.inOut.Config;
-import ru.mipt.optimization.entity.typeWrapper.FieldWrapper;
+import ru.mipt.optimization.supportive.DoubleVector;
 
 /**
- * Represents cost function and its domain
+ * Represents cost function and its domain.
+ * Works over primitive {@link DoubleVector} points, jscience vectors are accepted only as an adapter
+ * (see {@link CostFunction#apply(Vector)}).
  *
  * Created by Inna on 29.05.2017.
  */
-public abstract class CostFunction implements Function<Vector<Real>, Double> {
+public abstract class CostFunction implements Function<DoubleVector, Double> {
 
     protected final Config config; //interval of the domain search vision TODO replace to the config data class
-    private Function<Vector<Real>, Double> functionRule; // rule for mapping argument in its Double cost
+    private Function<DoubleVector, Double> functionRule; // rule for mapping argument in its Double cost
+    private Function<List<DoubleVector>, List<Double>> batchRule; // rule for mapping many arguments at once, can be null
     private final int dimension;
+    private EvaluationCache evaluationCache; // memo cache of the function values, null if values aren't cached
+    private InfeasibilityCache infeasibilityCache; // points out of the domain, null if they aren't remembered
+    private DomainIndex domainIndex; // known points in and out of the domain, null if they aren't remembered
 
-    public CostFunction(Function<Vector<Real>, Double> functionRule, int dimension, Config configurations) {
+    public CostFunction(Function<DoubleVector, Double> functionRule, int dimension, Config configurations) {
         if (functionRule == null) throw new IllegalArgumentException("function rule can't be null");
         if (configurations == null) throw new IllegalArgumentException("configurations can't be null");
         this.functionRule = functionRule;
@@ -29,17 +37,81 @@ public abstract class CostFunction implements Function<Vector<Real>, Double> {
     }
 
     @Override
+    public Double apply(DoubleVector vector) {
+        InfeasibilityCache infeasible = infeasibilityCache;
+        if (infeasible == null) return evaluate(vector);
+        if (infeasible.isInfeasible(vector)) return knownFeasibleValue(vector, infeasible);
+
+        Double res = evaluate(vector);
+        if (res == null) infeasible.addInfeasible(vector);
+        else infeasible.addFeasible(vector);
+        return res;
+    }
+
+    /**
+     * Returns values of the cost function in all the given points.
+     * If the {@link CostFunction#setBatchRule batch rule} is set all the points not answered by the caches
+     * are evaluated by one its call, otherwise points are evaluated one by one.
+     * @param points - points to calculate cost function in
+     * @return values of the cost function in the order of the points, null for the points out of the domain
+     * @throws IllegalStateException if the batch rule returns wrong number of values
+     */
+    public List<Double> applyAll(List<DoubleVector> points) {
+        Double[] res = new Double[points.size()];
+        if (batchRule == null) {
+            for (int i = 0; i < res.length; i++) res[i] = apply(points.get(i));
+            return Arrays.asList(res);
+        }
+
+        InfeasibilityCache infeasible = infeasibilityCache;
+        EvaluationCache cache = evaluationCache;
+        List<DoubleVector> toEvaluate = new ArrayList<>(res.length);
+        List<Integer> indices = new ArrayList<>(res.length);
+        for (int i = 0; i < res.length; i++) {
+            DoubleVector point = points.get(i);
+            if (infeasible != null && infeasible.isInfeasible(point)) {
+                res[i] = knownFeasibleValue(point, infeasible);
+                continue;
+            }
+            res[i] = (cache == null) ? null : cache.getIfPresent(point);
+            if (res[i] == null) {
+                toEvaluate.add(point);
+                indices.add(i);
+            }
+        }
+        if (toEvaluate.isEmpty()) return Arrays.asList(res);
+
+        List<Double> values = batchRule.apply(toEvaluate);
+        if (values == null || values.size() != toEvaluate.size())
+            throw new IllegalStateException("Batch rule must return one value for every given point!");
+        for (int j = 0; j < values.size(); j++) {
+            Double value = values.get(j);
+            res[indices.get(j)] = value;
+            if (cache != null) cache.put(toEvaluate.get(j), value);
+            if (infeasible != null) {
+                if (value == null) infeasible.addInfeasible(toEvaluate.get(j));
+                else infeasible.addFeasible(toEvaluate.get(j));
+            }
+        }
+        return Arrays.asList(res);
+    }
+
+    /**
+     * Adapter for the points given as jscience vectors
+     * @param vector - point to calculate cost function in
+     * @return value of the cost function in the given point or null if point is out of the domain
+     */
     public Double apply(Vector<Real> vector) {
-        return functionRule.apply(vector);
+        return apply(DoubleVector.valueOf(vector));
     }
 
     @Override
-    public <V> Function<V, Double> compose(Function<? super V, ? extends Vector<Real>> before) {
+    public <V> Function<V, Double> compose(Function<? super V, ? extends DoubleVector> before) {
         return functionRule.compose(before);
     }
 
     @Override
-    public <V> Function<Vector<Real>, V> andThen(Function<? super Double, ? extends V> after) {
+    public <V> Function<DoubleVector, V> andThen(Function<? super Double, ? extends V> after) {
         return functionRule.andThen(after);
     }
 
@@ -50,29 +122,30 @@ public abstract class CostFunction implements Function<Vector<Real>, Double> {
      *                       If is null returned point would not be checked on belonging to the domain.
      * @return given point with corrected to the search range elements
      */
-    public Vector<Real> correctToSearchRange(Vector<Real> toCorrect, Vector<Real> directionPoint) {
+    public DoubleVector correctToSearchRange(DoubleVector toCorrect, DoubleVector directionPoint) {
         if (toCorrect == null) throw new IllegalArgumentException("Point to correct can't be null!");
         checkDimension(toCorrect);
-        Vector res = correctToSearchRange(toCorrect);
+        DoubleVector res = correctToSearchRange(toCorrect);
         if (directionPoint != null && apply(res) == null)
             res = getNearestDomainPoint(res, directionPoint);
         return res;
     }
 
     //corrects to the search range and accuracy without domain check
-    protected Vector<Real> correctToSearchRange(Vector<Real> out) {
-        Real[] toWrite = new Real[out.getDimension()];
+    protected DoubleVector correctToSearchRange(DoubleVector out) {
+        double[] toWrite = new double[out.getDimension()];
         for (int i = 0; i<out.getDimension(); i++) {
-            if (out.get(i).doubleValue() < config.searchRange[0]) {
-                toWrite[i] = Real.valueOf(config.searchRange[0]);
-            } else if (out.get(i).doubleValue() > config.searchRange[1]) {
-                toWrite[i] = Real.valueOf(config.searchRange[1]);
-            } else if(Math.abs(out.get(i).doubleValue()) < config.accuracyOfDomainSearch) {
-                double coef = out.get(i).isNegative() ? -0.4: 0.4;
-                toWrite[i] = Real.valueOf(coef * config.accuracyOfDomainSearch);
-            } else toWrite[i] = out.get(i);
+            double element = out.get(i);
+            if (element < config.searchRange[0]) {
+                toWrite[i] = config.searchRange[0];
+            } else if (element > config.searchRange[1]) {
+                toWrite[i] = config.searchRange[1];
+            } else if(Math.abs(element) < config.accuracyOfDomainSearch) {
+                double coef = (element < 0) ? -0.4: 0.4;
+                toWrite[i] = coef * config.accuracyOfDomainSearch;
+            } else toWrite[i] = element;
         }
-        return DenseVector.valueOf(toWrite);
+        return DoubleVector.wrap(toWrite);
     }
 
     /**
@@ -84,8 +157,8 @@ public abstract class CostFunction implements Function<Vector<Real>, Double> {
      * @param directionPoint - point to specify the search direction
      * @return nearest domain point to the given point not in domain
      */
-    public abstract Vector<Real> getNearestDomainPoint(Vector<Real> pointNotInDomain,
-                                              Vector<Real> directionPoint);
+    public abstract DoubleVector getNearestDomainPoint(DoubleVector pointNotInDomain,
+                                              DoubleVector directionPoint);
 
     /**
      * Returns partial derivative in the given direction of this cost function in the given point
@@ -95,7 +168,7 @@ public abstract class CostFunction implements Function<Vector<Real>, Double> {
      * @throws IllegalArgumentException if the given point is out of the domain of the cost function
      *          or of direction is not within bounds.
      */
-    public abstract double getPartialDerivative (Vector<Real> x, int direction);
+    public abstract double getPartialDerivative (DoubleVector x, int direction);
 
     /**
      * Returnes gradient in the given point x
@@ -103,7 +176,19 @@ public abstract class CostFunction implements Function<Vector<Real>, Double> {
      * @return gradient in the given point x
      * @throws IllegalArgumentException if the given point is out of the domain of the cost function
      */
-    public abstract Vector<Real> getGradient(Vector<Real> x);
+    public abstract DoubleVector getGradient(DoubleVector x);
+
+    /**
+     * Returns gradient in the given point x with the known value of the cost function in it,
+     * so that estimation of the gradient doesn't evaluate the point again
+     * @param x - point in the domain of the cost function to calculate gradient in
+     * @param f - value of the cost function in x. If null it's evaluated if needed.
+     * @return gradient in the given point x
+     * @throws IllegalArgumentException if the given point is out of the domain of the cost function
+     */
+    public DoubleVector getGradient(DoubleVector x, Double f) {
+        return getGradient(x);
+    }
 
     /**
      * Retirnes gradients in nearest to x n points
@@ -111,20 +196,120 @@ public abstract class CostFunction implements Function<Vector<Real>, Double> {
      * @param area - area to calculate gradients
      * @return gradients in nearest to x n points
      */
-    public abstract List<Vector<Real>> getSubGradients(Vector<Real> x, double area);
+    public abstract List<DoubleVector> getSubGradients(DoubleVector x, double area);
+
+    /**
+     * Returns subgradients of the cost function in the area around the given point
+     * ranked by their products with the given direction, smallest first.
+     * Every product is calculated once.
+     * @param x - point to calculate subgradients around
+     * @param area - area to calculate gradients
+     * @param direction - direction to rank subgradients by
+     * @return subgradients ranked by their products with the direction
+     */
+    public List<DoubleVector> getRankedSubGradients(DoubleVector x, double area, DoubleVector direction) {
+        List<DoubleVector> subgradients = getSubGradients(x, area);
+        final double[] products = new double[subgradients.size()];
+        Integer[] order = new Integer[subgradients.size()];
+        int k = 0;
+        for (DoubleVector subgradient: subgradients) {
+            products[k] = direction.times(subgradient);
+            order[k] = k++;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(products[o1], products[o2]);
+            }
+        });
+
+        List<DoubleVector> indexed = new ArrayList<>(subgradients);
+        List<DoubleVector> res = new ArrayList<>(order.length);
+        for (int i: order) res.add(indexed.get(i));
+        return res;
+    }
 
 
-    protected void checkDimension(Vector<Real> toCheck) {
+    // calls the function rule through the memo cache if it's set
+    // returns cached value of the point answered as infeasible, since its feasible cell may have been evicted.
+    // Point which turns out to be evaluated is remembered as feasible again.
+    private Double knownFeasibleValue(DoubleVector vector, InfeasibilityCache infeasible) {
+        EvaluationCache cache = evaluationCache;
+        Double res = (cache == null) ? null : cache.getIfPresent(vector);
+        if (res != null) infeasible.addFeasible(vector);
+        return res;
+    }
+
+    private Double evaluate(DoubleVector vector) {
+        return (evaluationCache == null) ? functionRule.apply(vector)
+                : evaluationCache.apply(vector, functionRule);
+    }
+
+    protected void checkDimension(DoubleVector toCheck) {
         if (toCheck.getDimension() != dimension)
             throw new IllegalArgumentException("Dimension of the given point is wrong!");
     }
 
     //------------------------------------------------------------------------------------------------------------------
 
-    public Function<Vector<Real>, Double> getFunctionRule() {
+    public Function<DoubleVector, Double> getFunctionRule() {
         return functionRule;
     }
 
+    public EvaluationCache getEvaluationCache() {
+        return evaluationCache;
+    }
+
+    /**
+     * Sets memo cache to consult before calling the function rule.
+     * Note: the cache must be filled only by this or equal function.
+     * @param evaluationCache - cache of the function values. If null values aren't cached.
+     */
+    public void setEvaluationCache(EvaluationCache evaluationCache) {
+        this.evaluationCache = evaluationCache;
+    }
+
+    public Function<List<DoubleVector>, List<Double>> getBatchRule() {
+        return batchRule;
+    }
+
+    /**
+     * Sets rule to evaluate many points in one call, e.g. for the vectorized functions or the batch simulators.
+     * Is used by {@link CostFunction#applyAll(List)}, i.e. for finite-difference stencils.
+     * Note: the rule must give the same values as the function rule.
+     * @param batchRule - rule for mapping points in their costs in the same order, null for the points out of the domain.
+     *                  If null points are evaluated one by one.
+     */
+    public void setBatchRule(Function<List<DoubleVector>, List<Double>> batchRule) {
+        this.batchRule = batchRule;
+    }
+
+    public InfeasibilityCache getInfeasibilityCache() {
+        return infeasibilityCache;
+    }
+
+    /**
+     * Sets cache of the points out of the domain to consult before calling the function rule.
+     * Note: the cache must be filled only by this or equal function.
+     * @param infeasibilityCache - cache of the points out of the domain. If null such points aren't remembered.
+     */
+    public void setInfeasibilityCache(InfeasibilityCache infeasibilityCache) {
+        this.infeasibilityCache = infeasibilityCache;
+    }
+
+    public DomainIndex getDomainIndex() {
+        return domainIndex;
+    }
+
+    /**
+     * Sets index of the points known to be in or out of the domain to consult while searching the domain.
+     * Note: the index must be filled only by this or equal function.
+     * @param domainIndex - index of the known points. If null points aren't remembered.
+     */
+    public void setDomainIndex(DomainIndex domainIndex) {
+        this.domainIndex = domainIndex;
+    }
+
     public Config getConfig() {
         return config;
     }
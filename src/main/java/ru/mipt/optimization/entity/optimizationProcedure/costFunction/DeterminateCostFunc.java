@@ -1,55 +1,122 @@
 package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
 
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.inOut.Config;
-import ru.mipt.optimization.entity.typeWrapper.FieldWrapper;
+import ru.mipt.optimization.supportive.DoubleVector;
 
+import java.util.LinkedList;
 import java.util.List;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
  * Created by Inna on 21.07.2017.
+ * Represents the cost function with the known analytic gradient.
+ * Gradient and partial derivatives cost one call of the user gradient rule instead of finite differences.
+ * Domain of the function is still unknown and is searched the same way as for {@link UndeterminateCostFunc}.
  */
 public class DeterminateCostFunc extends CostFunction {
 
-    /* private ??? domain нужно чтобы
-    и функция разрешенных значений
-    и входит или не входит булен
-    и найти ближайшее*/
+    private final Function<DoubleVector, DoubleVector> gradientRule; // rule for mapping argument in its gradient
+    private final BiFunction<DoubleVector, Double, List<DoubleVector>> subGradientRule; // can be null
+    private final UndeterminateCostFunc domain; // searches domain of the function
 
     /**
-     * Creates new DeterminateCostFunc with specified accuracy.
+     * Creates new DeterminateCostFunc with the given gradient.
      * @param functionRule - rule for mapping X in its Double cost
+     * @param gradientRule - rule for mapping X in the gradient of the cost function in it
      * @param dimension dimension of given function
      * @param config - configurations, including interval of domain search vision and the search range
+     * @throws IllegalArgumentException if some rule or config is null
      */
-    public DeterminateCostFunc(Function functionRule, int dimension, Config config) {
+    public DeterminateCostFunc(Function<DoubleVector, Double> functionRule,
+                               Function<DoubleVector, DoubleVector> gradientRule, int dimension, Config config) {
+        this(functionRule, gradientRule, null, dimension, config);
+    }
+
+    /**
+     * Creates new DeterminateCostFunc with the given gradient and subgradients oracle.
+     * @param functionRule - rule for mapping X in its Double cost
+     * @param gradientRule - rule for mapping X in the gradient of the cost function in it
+     * @param subGradientRule - rule for mapping X and area in the subgradients of the cost function in this area of X.
+     *                        If null subgradients are sampled by gradientRule in the area.
+     * @param dimension dimension of given function
+     * @param config - configurations, including interval of domain search vision and the search range
+     * @throws IllegalArgumentException if function rule, gradient rule or config is null
+     */
+    public DeterminateCostFunc(Function<DoubleVector, Double> functionRule,
+                               Function<DoubleVector, DoubleVector> gradientRule,
+                               BiFunction<DoubleVector, Double, List<DoubleVector>> subGradientRule,
+                               int dimension, Config config) {
         super(functionRule, dimension, config);
+        if (gradientRule == null) throw new IllegalArgumentException("gradient rule can't be null");
+        this.gradientRule = gradientRule;
+        this.subGradientRule = subGradientRule;
+        this.domain = new UndeterminateCostFunc(functionRule, dimension, config);
+    }
+
+    @Override
+    public DoubleVector getNearestDomainPoint(DoubleVector pointNotInDomain,
+                                     DoubleVector directionPoint) {
+        return domain.getNearestDomainPoint(pointNotInDomain, directionPoint);
+    }
+
+    @Override
+    public double getPartialDerivative(DoubleVector x, int dir) {
+        if (dir < 0 || dir > x.getDimension()-1)
+            throw new IllegalArgumentException("Given direction isn't within its bounds!");
+        return getGradient(x).get(dir);
     }
 
     @Override
-    public Vector<Real> getNearestDomainPoint(Vector<Real> pointNotInDomain,
-                                     Vector<Real> directionPoint) {
-        // TODO: 10.10.2017 realize
-        return null;
+    public DoubleVector getGradient(DoubleVector x) {
+        checkDimension(x);
+
+        DoubleVector gradient = gradientRule.apply(x);
+        if (gradient == null)
+            throw new IllegalArgumentException("Given point x is out of the domain. Can't calculate gradient!");
+        if (gradient.getDimension() != x.getDimension())
+            throw new IllegalArgumentException("Dimension of the gradient given by gradient rule is wrong!");
+        return gradient;
     }
 
     @Override
-    public double getPartialDerivative(Vector<Real> x, int dir) {
-        // TODO: 11.10.2017 realize 
-        return 0;
+    public List<DoubleVector> getSubGradients(DoubleVector x, double area) {
+        checkDimension(x);
+        if (subGradientRule != null) return subGradientRule.apply(x, area);
+
+        int n = (int) (area/config.accuracyOfDomainSearch);
+
+        List<DoubleVector> subgradients = new LinkedList<>();
+        DoubleVector newX = x;
+        for (int i=0; i<n; i++) {
+            newX = newX.plus(config.accuracyOfDomainSearch);
+            if (apply(newX) == null) newX = getNearestDomainPoint(newX, x);
+            subgradients.add(getGradient(newX));
+        }
+        return subgradients;
     }
 
     @Override
-    public Vector<Real> getGradient(Vector<Real> x) {
-        // TODO: 18.10.2017 realize 
-        return null;
+    public void setEvaluationCache(EvaluationCache evaluationCache) {
+        super.setEvaluationCache(evaluationCache);
+        domain.setEvaluationCache(evaluationCache);
     }
 
     @Override
-    public List<Vector<Real>> getSubGradients(Vector<Real> x, double area) {
-        // TODO: 21.10.2017 realize
-        return null;
+    public void setInfeasibilityCache(InfeasibilityCache infeasibilityCache) {
+        super.setInfeasibilityCache(infeasibilityCache);
+        domain.setInfeasibilityCache(infeasibilityCache);
+    }
+
+    @Override
+    public void setDomainIndex(DomainIndex domainIndex) {
+        super.setDomainIndex(domainIndex);
+        domain.setDomainIndex(domainIndex);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public Function<DoubleVector, DoubleVector> getGradientRule() {
+        return gradientRule;
     }
 }
@@ -0,0 +1,11 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+/**
+ * Finite-difference scheme to calculate partial derivatives of the cost function which gradient is unknown
+ * (see {@link UndeterminateCostFunc})
+ */
+public enum DifferenceScheme {
+    FORWARD, // (f(x+h) - f(x))/h, one evaluation per coordinate, error O(h)
+    CENTRAL, // (f(x+h) - f(x-h))/2h, two evaluations per coordinate, error O(h^2)
+    RICHARDSON // central differences with steps h and h/2 extrapolated, four evaluations per coordinate, error O(h^4)
+}
@@ -0,0 +1,194 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Represents bounded spatial index of the points of the cost function known to be in or out of its domain.
+ * Points in the domain are kept in the k-d tree to answer nearest domain point queries from history,
+ * feasibility of every known point is answered exactly.
+ * When capacity is exceeded the earliest half of the points is dropped and the tree is rebuilt balanced.
+ * Is safe to share between concurrently running searches over the same function.
+ * Note: all the points of the index must be of the same dimension.
+ */
+public class DomainIndex {
+
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    private final int capacity;
+    private final LinkedHashMap<DoubleVector, Boolean> known = new LinkedHashMap<>(); // in insertion order
+    private Node root;
+
+    /**
+     * Creates empty index of the given capacity
+     * @param capacity - maximum number of the known points. Must be greater than 1.
+     * @throws IllegalArgumentException if capacity is less than 2
+     */
+    public DomainIndex(int capacity) {
+        if (capacity < 2) throw new IllegalArgumentException("Capacity of the domain index must be greater than 1!");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates empty index of the {@link DomainIndex#DEFAULT_CAPACITY default} capacity
+     */
+    public DomainIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Remembers whether the given point is in the domain
+     * @param point - point of the cost function
+     * @param inDomain - true if the point is in the domain
+     */
+    public synchronized void add(DoubleVector point, boolean inDomain) {
+        if (known.put(point, inDomain) != null) return;
+        if (inDomain) insert(point);
+        if (known.size() > capacity) evictEarliestHalf();
+    }
+
+    /**
+     * Returns whether the given point is known to be in the domain
+     * @param point - point to check
+     * @return true if the point is known to be in the domain, false if it's known to be out of it
+     * and null if it's unknown
+     */
+    public synchronized Boolean isInDomain(DoubleVector point) {
+        return known.get(point);
+    }
+
+    /**
+     * Returns nearest to the given point known domain point
+     * @param point - point to find nearest domain point to
+     * @return nearest known domain point or null if no domain point is known
+     */
+    public DoubleVector getNearestInDomain(DoubleVector point) {
+        return getNearestInDomain(point, null);
+    }
+
+    /**
+     * Returns nearest to the given point known domain point accepted by the given filter
+     * @param point - point to find nearest domain point to
+     * @param filter - condition on the returned point, e.g. to lie in the given direction. If null any point is accepted.
+     * @return nearest known domain point accepted by the filter or null if no such point is known
+     */
+    public synchronized DoubleVector getNearestInDomain(DoubleVector point, Predicate<DoubleVector> filter) {
+        DoubleVector best = null;
+        double bestDistance = Double.POSITIVE_INFINITY;
+
+        Deque<Node> toVisit = new ArrayDeque<>();
+        if (root != null) toVisit.push(root);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.pop();
+            double distance = squaredDistance(node.point, point);
+            if (distance < bestDistance && (filter == null || filter.test(node.point))) {
+                bestDistance = distance;
+                best = node.point;
+            }
+
+            double diff = point.get(node.axis) - node.point.get(node.axis);
+            Node near = (diff < 0) ? node.left : node.right;
+            Node far = (diff < 0) ? node.right : node.left;
+            if (far != null && diff * diff < bestDistance) toVisit.push(far);
+            if (near != null) toVisit.push(near); // is visited first
+        }
+        return best;
+    }
+
+    public synchronized int size() {
+        return known.size();
+    }
+
+    public synchronized void clear() {
+        known.clear();
+        root = null;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private void insert(DoubleVector point) {
+        if (root == null) {
+            root = new Node(point, 0);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            boolean left = point.get(node.axis) < node.point.get(node.axis);
+            Node next = left ? node.left : node.right;
+            if (next == null) {
+                Node child = new Node(point, (node.axis + 1) % point.getDimension());
+                if (left) node.left = child;
+                else node.right = child;
+                return;
+            }
+            node = next;
+        }
+    }
+
+    private void evictEarliestHalf() {
+        Iterator<Map.Entry<DoubleVector, Boolean>> iterator = known.entrySet().iterator();
+        for (int i = known.size() - capacity / 2; i > 0 && iterator.hasNext(); i--) {
+            iterator.next();
+            iterator.remove();
+        }
+
+        List<DoubleVector> inDomain = new ArrayList<>();
+        for (Map.Entry<DoubleVector, Boolean> entry: known.entrySet())
+            if (entry.getValue()) inDomain.add(entry.getKey());
+        root = build(inDomain.toArray(new DoubleVector[inDomain.size()]), 0, inDomain.size(), 0);
+    }
+
+    // builds balanced tree over the points in [from, to)
+    private Node build(DoubleVector[] points, int from, int to, int axis) {
+        if (from >= to) return null;
+        final int curAxis = axis % points[from].getDimension();
+        Arrays.sort(points, from, to, new Comparator<DoubleVector>() {
+            @Override
+            public int compare(DoubleVector o1, DoubleVector o2) {
+                return Double.compare(o1.get(curAxis), o2.get(curAxis));
+            }
+        });
+        int median = (from + to) >>> 1;
+        Node node = new Node(points[median], curAxis);
+        node.left = build(points, from, median, curAxis + 1);
+        node.right = build(points, median + 1, to, curAxis + 1);
+        return node;
+    }
+
+    private static double squaredDistance(DoubleVector one, DoubleVector two) {
+        double res = 0;
+        for (int i = 0; i < one.getDimension(); i++) {
+            double d = one.get(i) - two.get(i);
+            res += d * d;
+        }
+        return res;
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    private static class Node {
+        final DoubleVector point;
+        final int axis;
+        Node left; // points with not larger element on the axis
+        Node right; // points with not smaller element on the axis
+
+        Node(DoubleVector point, int axis) {
+            this.point = point;
+            this.axis = axis;
+        }
+    }
+}
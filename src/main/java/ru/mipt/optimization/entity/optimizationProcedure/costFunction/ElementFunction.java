@@ -0,0 +1,55 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.function.Function;
+
+/**
+ * Represents one element of the partially separable cost function (see {@link PartiallySeparableCostFunc}),
+ * i.e. the function of few coordinates of the argument.
+ */
+public class ElementFunction {
+
+    private final int[] indices; // coordinates of the argument the element depends on
+    private final Function<double[], Double> rule; // rule for mapping the coordinates in the value of the element
+
+    /**
+     * Creates new element
+     * @param indices - coordinates of the argument the element depends on
+     * @param rule - rule for mapping values of the coordinates in the order of the indices in the value of the element,
+     *             returns null if they're out of the domain
+     * @throws IllegalArgumentException if indices or rule is null or some index is negative or repeated
+     */
+    public ElementFunction(int[] indices, Function<double[], Double> rule) {
+        if (indices == null || rule == null) throw new IllegalArgumentException("Arguments of element can't be null!");
+        for (int j = 0; j < indices.length; j++) {
+            if (indices[j] < 0) throw new IllegalArgumentException("Index of the coordinate can't be negative!");
+            for (int l = 0; l < j; l++)
+                if (indices[l] == indices[j])
+                    throw new IllegalArgumentException("Index " + indices[j] + " of the coordinate is repeated!");
+        }
+        this.indices = indices.clone();
+        this.rule = rule;
+    }
+
+    /**
+     * Returns value of the element in the given point
+     * @param point - argument of the cost function
+     * @return value of the element or null if the point is out of the domain
+     */
+    public Double apply(DoubleVector point) {
+        double[] coordinates = new double[indices.length];
+        for (int j = 0; j < indices.length; j++) coordinates[j] = point.get(indices[j]);
+        return rule.apply(coordinates);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public int[] getIndices() {
+        return indices.clone();
+    }
+
+    public Function<double[], Double> getRule() {
+        return rule;
+    }
+}
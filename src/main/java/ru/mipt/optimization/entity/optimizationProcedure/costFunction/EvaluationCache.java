@@ -0,0 +1,179 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Represents bounded memo cache of the values of the cost function keyed by the content of the point.
+ * Is safe to share between concurrently running optimization procedures over the same function:
+ * points are spread over independently locked segments, each evicting by the chosen {@link EvictionPolicy}.
+ * Only points in the domain are cached, null values of the function are always recalculated.
+ */
+public class EvaluationCache {
+
+    private static final int MAX_SEGMENTS_NUM = 16;
+
+    private final Segment[] segments;
+    private final EvictionPolicy policy;
+    private final int capacity;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates empty cache of the given capacity
+     * @param capacity - maximum number of the cached points. Must be positive.
+     * @param policy - policy to choose points to evict when capacity is exceeded
+     * @throws IllegalArgumentException if capacity isn't positive or policy is null
+     */
+    public EvaluationCache(int capacity, EvictionPolicy policy) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity of the cache must be positive!");
+        if (policy == null) throw new IllegalArgumentException("Eviction policy can't be null!");
+        this.capacity = capacity;
+        this.policy = policy;
+
+        int segmentsNum = Math.min(MAX_SEGMENTS_NUM, capacity);
+        segments = new Segment[segmentsNum];
+        for (int i = 0; i < segmentsNum; i++) // remainder of the capacity goes to the first segments
+            segments[i] = new Segment(capacity / segmentsNum + ((i < capacity % segmentsNum) ? 1 : 0),
+                    policy == EvictionPolicy.LRU);
+    }
+
+    /**
+     * Returns cached value of the function in the given point or calculates it by the given rule and caches it
+     * @param point - point to calculate function in
+     * @param functionRule - rule to calculate value if it isn't cached
+     * @return value of the function in the given point, null if point is out of the domain
+     */
+    public Double apply(DoubleVector point, Function<DoubleVector, Double> functionRule) {
+        Segment segment = segmentFor(point);
+        Double value;
+        synchronized (segment) {
+            value = segment.get(point);
+        }
+        if (value != null) {
+            hits.incrementAndGet();
+            return value;
+        }
+
+        misses.incrementAndGet();
+        value = functionRule.apply(point);
+        if (value != null)
+            synchronized (segment) {
+                segment.put(point, value);
+            }
+        return value;
+    }
+
+    /**
+     * Returns cached value of the function in the given point without calculating it
+     * @param point - point to look up
+     * @return cached value or null if the point isn't cached
+     */
+    public Double getIfPresent(DoubleVector point) {
+        Segment segment = segmentFor(point);
+        Double value;
+        synchronized (segment) {
+            value = segment.get(point);
+        }
+        if (value != null) hits.incrementAndGet();
+        else misses.incrementAndGet();
+        return value;
+    }
+
+    /**
+     * Caches value of the function in the given point calculated elsewhere, e.g. in the batch
+     * @param point - point of the function
+     * @param value - value of the function in the point. If null nothing is cached.
+     */
+    public void put(DoubleVector point, Double value) {
+        if (value == null) return;
+        Segment segment = segmentFor(point);
+        synchronized (segment) {
+            segment.put(point, value);
+        }
+    }
+
+    /**
+     * Removes all cached values and resets counters
+     */
+    public void clear() {
+        for (Segment segment: segments)
+            synchronized (segment) {
+                segment.clear();
+            }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment: segments)
+            synchronized (segment) {
+                size += segment.size();
+            }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public EvictionPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluationCache: capacity = " + capacity + "; policy = " + policy
+                + "; hits = " + getHitCount() + "; misses = " + getMissCount();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private Segment segmentFor(DoubleVector point) {
+        int h = point.hashCode();
+        h ^= (h >>> 16);
+        return segments[(h & Integer.MAX_VALUE) % segments.length];
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    /**
+     * Policy to choose cached points to evict
+     */
+    public enum EvictionPolicy {
+        LRU, // evicts least recently used point
+        FIFO // evicts earliest cached point
+    }
+
+    private static class Segment extends LinkedHashMap<DoubleVector, Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity, boolean accessOrder) {
+            super(16, 0.75f, accessOrder);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<DoubleVector, Double> eldest) {
+            return size() > capacity;
+        }
+    }
+}
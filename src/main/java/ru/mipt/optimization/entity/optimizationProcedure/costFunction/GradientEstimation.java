@@ -0,0 +1,12 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+/**
+ * Method to estimate the gradient of the cost function which gradient is unknown
+ * (see {@link UndeterminateCostFunc})
+ */
+public enum GradientEstimation {
+    FINITE_DIFFERENCES, // perturbs coordinates one by one, n+1 evaluations
+    SPSA, // simultaneous perturbation of all coordinates by random signs, 2 evaluations per perturbation
+    SPARSE_FINITE_DIFFERENCES // perturbs groups of structurally independent coordinates together (see SparsityPattern),
+                              // groups+1 evaluations of the elements, needs the element rule
+}
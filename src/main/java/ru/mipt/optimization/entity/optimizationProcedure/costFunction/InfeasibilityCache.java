@@ -0,0 +1,164 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents bounded cache of the points known to be out of the domain of the cost function,
+ * so that the function isn't called again in them.
+ * Depending on the {@link FalsePositivePolicy} points are remembered exactly or by the cells of the grid
+ * of the given resolution (usually accuracyOfDomainSearch). Cells where a domain point has been seen are never
+ * answered as infeasible, so points once found in the domain stay there.
+ * When capacity is exceeded the earliest point is evicted. Cells with domain points are kept apart with the same capacity,
+ * so they are never evicted by the infeasible ones.
+ * Note: the cell with a domain point can still be evicted by newer such cells and answered as infeasible afterwards,
+ * so {@link CostFunction#apply(DoubleVector)} consults its {@link EvaluationCache} before answering infeasible.
+ * Is safe to share between concurrently running optimization procedures over the same function.
+ */
+public class InfeasibilityCache {
+
+    private final int capacity;
+    private final double resolution;
+    private final FalsePositivePolicy policy;
+    private final Map<DoubleVector, Boolean> infeasible; // guarded by itself
+    private final Map<DoubleVector, Boolean> feasible; // cells with domain points, guarded by infeasible
+
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Creates empty cache of the given capacity
+     * @param capacity - maximum number of the remembered points or cells. Must be positive.
+     * @param resolution - size of the cell of the grid, is used only by {@link FalsePositivePolicy#QUANTIZED} policy.
+     *                   Must be positive.
+     * @param policy - policy to answer for the points never seen before
+     * @throws IllegalArgumentException if capacity or resolution isn't positive or policy is null
+     */
+    public InfeasibilityCache(final int capacity, double resolution, FalsePositivePolicy policy) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity of the cache must be positive!");
+        if (!(resolution > 0)) throw new IllegalArgumentException("Resolution of the cache must be positive!");
+        if (policy == null) throw new IllegalArgumentException("False positive policy can't be null!");
+        this.capacity = capacity;
+        this.resolution = resolution;
+        this.policy = policy;
+        this.infeasible = newFifoMap(capacity);
+        this.feasible = newFifoMap(capacity);
+    }
+
+    /**
+     * Returns whether the given point is known to be out of the domain
+     * @param point - point to check
+     * @return true if the point (or its cell for {@link FalsePositivePolicy#QUANTIZED} policy)
+     * is known to be out of the domain
+     */
+    public boolean isInfeasible(DoubleVector point) {
+        DoubleVector key = keyOf(point);
+        boolean res;
+        synchronized (infeasible) {
+            res = !feasible.containsKey(key) && infeasible.containsKey(key);
+        }
+        if (res) hits.incrementAndGet();
+        return res;
+    }
+
+    /**
+     * Remembers that the given point is out of the domain
+     * @param point - point out of the domain
+     */
+    public void addInfeasible(DoubleVector point) {
+        DoubleVector key = keyOf(point);
+        synchronized (infeasible) {
+            if (!feasible.containsKey(key) && !infeasible.containsKey(key)) infeasible.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Remembers that the given point is in the domain, so its cell is never answered as infeasible.
+     * Does nothing for {@link FalsePositivePolicy#EXACT} policy.
+     * @param point - point in the domain
+     */
+    public void addFeasible(DoubleVector point) {
+        if (policy == FalsePositivePolicy.EXACT) return;
+        DoubleVector key = keyOf(point);
+        synchronized (infeasible) {
+            infeasible.remove(key);
+            feasible.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Removes all remembered points and resets counter
+     */
+    public void clear() {
+        synchronized (infeasible) {
+            infeasible.clear();
+            feasible.clear();
+        }
+        hits.set(0);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns number of the remembered infeasible points or cells
+     * @return number of the remembered infeasible points or cells
+     */
+    public int size() {
+        synchronized (infeasible) {
+            return infeasible.size();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getResolution() {
+        return resolution;
+    }
+
+    public FalsePositivePolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        return "InfeasibilityCache: capacity = " + capacity + "; resolution = " + resolution
+                + "; policy = " + policy + "; hits = " + getHitCount();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private static Map<DoubleVector, Boolean> newFifoMap(final int capacity) {
+        return new LinkedHashMap<DoubleVector, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DoubleVector, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private DoubleVector keyOf(DoubleVector point) {
+        if (policy == FalsePositivePolicy.EXACT) return point;
+        double[] cell = new double[point.getDimension()];
+        for (int i = 0; i < cell.length; i++)
+            cell[i] = Math.floor(point.get(i) / resolution);
+        return DoubleVector.wrap(cell);
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    /**
+     * Policy to answer for the points never seen before
+     */
+    public enum FalsePositivePolicy {
+        EXACT, // only the very same points are answered, no false positives
+        QUANTIZED // the whole cell of the known point is answered, cells crossed by the domain border can give false positives
+    }
+}
@@ -0,0 +1,186 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Represents the cost function which is the sum of the {@link ElementFunction elements} of few coordinates.
+ * Values of the elements in the last evaluated point are remembered, and in the next point only the elements
+ * depending on the changed coordinates are evaluated, so finite differences, coordinate moves and line searches
+ * over few coordinates cost O(term size) evaluations of the elements instead of all of them.
+ * Dependencies of the elements are known, so {@link GradientEstimation#SPARSE_FINITE_DIFFERENCES}
+ * doesn't need to detect them.
+ * Domain of the function is unknown and is searched the same way as for {@link UndeterminateCostFunc}.
+ */
+public class PartiallySeparableCostFunc extends UndeterminateCostFunc {
+
+    private final IncrementalSum sum;
+
+    /**
+     * Creates new PartiallySeparableCostFunc
+     * @param elements - elements which sum is the function
+     * @param dimension dimension of given function
+     * @param config - configurations, including interval of domain search vision and the search range
+     * @throws IllegalArgumentException if elements are null or empty or some element's index is out of the dimension
+     */
+    public PartiallySeparableCostFunc(List<ElementFunction> elements, int dimension, Config config) {
+        this(new IncrementalSum(elements, dimension), dimension, config);
+    }
+
+    private PartiallySeparableCostFunc(final IncrementalSum sum, int dimension, Config config) {
+        super(sum, dimension, config);
+        this.sum = sum;
+        setElementRule(new Function<DoubleVector, DoubleVector>() {
+            @Override
+            public DoubleVector apply(DoubleVector point) {
+                double[] values = sum.evaluateElements(point);
+                return (values == null) ? null : DoubleVector.wrap(values);
+            }}, sum.pattern);
+    }
+
+    /**
+     * Returns change of the function when the given point moves along the coordinate,
+     * evaluating only the elements depending on it
+     * @param x - point to move
+     * @param dir - coordinate to move along
+     * @param step - step of the move
+     * @return change of the function or null if the point or the moved one is out of the domain
+     * @throws IllegalArgumentException if the coordinate isn't within its bounds
+     */
+    public Double getCoordinateDelta(DoubleVector x, int dir, double step) {
+        checkDimension(x);
+        if (dir < 0 || dir > x.getDimension()-1)
+            throw new IllegalArgumentException("Given direction isn't within its bounds!");
+        return sum.getCoordinateDelta(x, dir, step);
+    }
+
+    /**
+     * Calculates partial derivative by the {@link #getCoordinateDelta coordinate delta}, so only the elements
+     * depending on the coordinate are evaluated. Is done for the fixed forward difference,
+     * the other schemes and the moves out of the domain are calculated as by {@link UndeterminateCostFunc}.
+     */
+    @Override
+    public double getPartialDerivative(DoubleVector x, int dir) {
+        if (!isLegacyDifference()) return super.getPartialDerivative(x, dir);
+        Double delta = getCoordinateDelta(x, dir, config.accuracyOfDomainSearch);
+        return (delta != null) ? getDifference(delta) : super.getPartialDerivative(x, dir);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public List<ElementFunction> getElements() {
+        return sum.elements;
+    }
+
+    /**
+     * Returns total number of the evaluations of the elements
+     * @return total number of the evaluations of the elements
+     */
+    public long getElementEvaluationsNumber() {
+        return sum.evaluations.get();
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    /**
+     * Sum of the elements re-evaluating only the elements affected by the changed coordinates.
+     * Is safe to call concurrently, remembered point is the last one evaluated by any thread.
+     */
+    private static class IncrementalSum implements Function<DoubleVector, Double> {
+        private final List<ElementFunction> elements;
+        private final int[][] elementsOf; // elements depending on every coordinate
+        private final SparsityPattern pattern;
+        private final AtomicReference<State> last = new AtomicReference<>(); // null until all the elements are evaluated
+        private final AtomicLong evaluations = new AtomicLong();
+
+        IncrementalSum(List<ElementFunction> elements, int dimension) {
+            if (elements == null || elements.isEmpty())
+                throw new IllegalArgumentException("Elements of the function can't be null or empty!");
+            this.elements = new ArrayList<>(elements);
+
+            int[][] dependencies = new int[elements.size()][];
+            for (int k = 0; k < dependencies.length; k++) dependencies[k] = elements.get(k).getIndices();
+            this.pattern = new SparsityPattern(dimension, dependencies);
+
+            List<List<Integer>> dependent = new ArrayList<>(dimension);
+            for (int i = 0; i < dimension; i++) dependent.add(new ArrayList<Integer>());
+            for (int k = 0; k < dependencies.length; k++)
+                for (int i: dependencies[k])
+                    if (!dependent.get(i).contains(k)) dependent.get(i).add(k);
+            this.elementsOf = new int[dimension][];
+            for (int i = 0; i < dimension; i++) {
+                elementsOf[i] = new int[dependent.get(i).size()];
+                for (int j = 0; j < elementsOf[i].length; j++) elementsOf[i][j] = dependent.get(i).get(j);
+            }
+        }
+
+        @Override
+        public Double apply(DoubleVector point) {
+            double[] values = evaluateElements(point);
+            if (values == null) return null;
+            double res = 0;
+            for (double value: values) res += value;
+            return res;
+        }
+
+        // returns values of all the elements in the point, evaluating only the ones affected since the last point
+        double[] evaluateElements(DoubleVector point) {
+            State state = last.get();
+            double[] values;
+            boolean[] affected = new boolean[elements.size()];
+            if (state == null) {
+                values = new double[elements.size()];
+                for (int k = 0; k < affected.length; k++) affected[k] = true;
+            } else {
+                values = state.values.clone();
+                for (int i = 0; i < point.getDimension(); i++)
+                    if (Double.compare(point.get(i), state.point.get(i)) != 0)
+                        for (int k: elementsOf[i]) affected[k] = true;
+            }
+
+            for (int k = 0; k < affected.length; k++) {
+                if (!affected[k]) continue;
+                Double value = evaluate(k, point);
+                if (value == null) return null;
+                values[k] = value;
+            }
+            last.set(new State(point, values));
+            return values.clone();
+        }
+
+        Double getCoordinateDelta(DoubleVector x, int dir, double step) {
+            State state = last.get();
+            boolean known = state != null && state.point.equals(x);
+            DoubleVector moved = x.plus(dir, step);
+            double res = 0;
+            for (int k: elementsOf[dir]) {
+                Double before = known ? state.values[k] : evaluate(k, x);
+                Double after = evaluate(k, moved);
+                if (before == null || after == null) return null;
+                res += after - before;
+            }
+            return res;
+        }
+
+        private Double evaluate(int element, DoubleVector point) {
+            evaluations.incrementAndGet();
+            return elements.get(element).apply(point);
+        }
+    }
+
+    private static class State {
+        final DoubleVector point;
+        final double[] values; // values of all the elements in the point
+
+        State(DoubleVector point, double[] values) {
+            this.point = point;
+            this.values = values;
+        }
+    }
+}
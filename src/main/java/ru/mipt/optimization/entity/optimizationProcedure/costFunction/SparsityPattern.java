@@ -0,0 +1,188 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Represents dependency structure of the partially separable cost function, i.e. the sum of the elements
+ * every of which depends only on few coordinates, and grouping of its coordinates for the finite differences.
+ * Coordinates are structurally independent if no element depends on both of them,
+ * such coordinates can be perturbed together, since every element changes only by its own coordinate of the group.
+ * Groups are found by the greedy coloring of the coordinates intersection graph (Curtis-Powell-Reid grouping),
+ * largest degree first, so the gradient costs the number of the groups plus one evaluations of the elements.
+ */
+public class SparsityPattern {
+
+    private final int dimension;
+    private final int[][] dependencies; // coordinates every element depends on
+    private final int[] groupOf; // group of every coordinate
+    private final int[][] groups; // coordinates of every group
+
+    /**
+     * Creates the pattern by the declared dependencies of the elements.
+     * Repeated coordinates of the element are counted once.
+     * @param dimension - dimension of the cost function
+     * @param dependencies - coordinates every element depends on, in order of the elements
+     * @throws IllegalArgumentException if dependencies are null or some coordinate is out of the dimension
+     */
+    public SparsityPattern(int dimension, int[][] dependencies) {
+        if (dependencies == null) throw new IllegalArgumentException("Dependencies can't be null!");
+        this.dimension = dimension;
+        this.dependencies = new int[dependencies.length][];
+        boolean[] seen = new boolean[Math.max(0, dimension)];
+        for (int k = 0; k < dependencies.length; k++) {
+            int[] distinct = new int[dependencies[k].length];
+            int distinctNum = 0;
+            for (int i: dependencies[k]) {
+                if (i < 0 || i >= dimension)
+                    throw new IllegalArgumentException("Coordinate " + i + " of the element " + k
+                            + " is out of the dimension " + dimension);
+                if (seen[i]) continue;
+                seen[i] = true;
+                distinct[distinctNum++] = i;
+            }
+            for (int j = 0; j < distinctNum; j++) seen[distinct[j]] = false;
+            this.dependencies[k] = Arrays.copyOf(distinct, distinctNum);
+        }
+        this.groupOf = color();
+        this.groups = collectGroups();
+    }
+
+    /**
+     * Detects dependencies of the elements perturbing the coordinates one by one,
+     * element depends on the coordinate if its value changes.
+     * Coordinates which perturbation is out of the domain are considered to affect all the elements.
+     * Note: costs dimension plus one evaluations, declare the dependencies if they're known.
+     * Values are compared exactly in the single point, so the dependency which doesn't change the element
+     * by this step there (e.g. at the extremum of the element along the coordinate) is missed,
+     * and the roundoff of the element rule can add spurious ones. The detected pattern is kept by the cost function
+     * for the rest of its work, so declare it if the structure depends on the point.
+     * @param elementRule - rule for mapping the point in the values of the elements, null if it's out of the domain
+     * @param x - point in the domain to detect dependencies in
+     * @param step - step of the perturbations
+     * @return detected pattern
+     * @throws IllegalArgumentException if x is out of the domain
+     */
+    public static SparsityPattern detect(Function<DoubleVector, DoubleVector> elementRule, DoubleVector x, double step) {
+        DoubleVector elements = elementRule.apply(x);
+        if (elements == null)
+            throw new IllegalArgumentException("Given point x is out of the domain. Can't detect dependencies!");
+
+        List<List<Integer>> dependent = new ArrayList<>(elements.getDimension());
+        for (int k = 0; k < elements.getDimension(); k++) dependent.add(new ArrayList<Integer>());
+        for (int i = 0; i < x.getDimension(); i++) {
+            DoubleVector perturbed = elementRule.apply(x.plus(i, step));
+            for (int k = 0; k < elements.getDimension(); k++)
+                if (perturbed == null || Double.compare(perturbed.get(k), elements.get(k)) != 0)
+                    dependent.get(k).add(i);
+        }
+
+        int[][] dependencies = new int[dependent.size()][];
+        for (int k = 0; k < dependencies.length; k++) {
+            dependencies[k] = new int[dependent.get(k).size()];
+            for (int j = 0; j < dependencies[k].length; j++) dependencies[k][j] = dependent.get(k).get(j);
+        }
+        return new SparsityPattern(x.getDimension(), dependencies);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int getElementsNumber() {
+        return dependencies.length;
+    }
+
+    public int getGroupsNumber() {
+        return groups.length;
+    }
+
+    /**
+     * Returns coordinates the element depends on
+     * @param element - index of the element
+     * @return coordinates the element depends on
+     */
+    public int[] getDependencies(int element) {
+        return dependencies[element].clone();
+    }
+
+    /**
+     * Returns structurally independent coordinates perturbed together
+     * @param group - index of the group
+     * @return coordinates of the group
+     */
+    public int[] getGroup(int group) {
+        return groups[group].clone();
+    }
+
+    public int getGroupOf(int coordinate) {
+        return groupOf[coordinate];
+    }
+
+    @Override
+    public String toString() {
+        return "SparsityPattern: dimension = " + dimension + "; elements = " + dependencies.length
+                + "; groups = " + groups.length;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    // colors coordinates greedily so that coordinates of the same element get different colors
+    private int[] color() {
+        List<List<Integer>> elementsOf = new ArrayList<>(dimension);
+        for (int i = 0; i < dimension; i++) elementsOf.add(new ArrayList<Integer>());
+        for (int k = 0; k < dependencies.length; k++)
+            for (int i: dependencies[k]) elementsOf.get(i).add(k);
+
+        final int[] degree = new int[dimension];
+        for (int i = 0; i < dimension; i++)
+            for (int k: elementsOf.get(i)) degree[i] += dependencies[k].length - 1;
+        Integer[] order = new Integer[dimension];
+        for (int i = 0; i < dimension; i++) order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Integer.compare(degree[o2], degree[o1]);
+            }
+        });
+
+        int[] colors = new int[dimension];
+        Arrays.fill(colors, -1);
+        boolean[] used = new boolean[dimension];
+        int[] marked = new int[dimension]; // colors marked as used for the current coordinate
+        for (int i: order) {
+            int markedNum = 0;
+            for (int k: elementsOf.get(i))
+                for (int j: dependencies[k])
+                    if (colors[j] >= 0 && !used[colors[j]]) {
+                        used[colors[j]] = true;
+                        marked[markedNum++] = colors[j];
+                    }
+            int color = 0;
+            while (used[color]) color++;
+            colors[i] = color;
+            for (int m = 0; m < markedNum; m++) used[marked[m]] = false; // not the whole array, not to be quadratic
+        }
+        return colors;
+    }
+
+    private int[][] collectGroups() {
+        int groupsNum = 0;
+        for (int color: groupOf) groupsNum = Math.max(groupsNum, color + 1);
+        int[] sizes = new int[groupsNum];
+        for (int color: groupOf) sizes[color]++;
+
+        int[][] res = new int[groupsNum][];
+        for (int g = 0; g < groupsNum; g++) res[g] = new int[sizes[g]];
+        int[] filled = new int[groupsNum];
+        for (int i = 0; i < dimension; i++) res[groupOf[i]][filled[groupOf[i]]++] = i;
+        return res;
+    }
+}
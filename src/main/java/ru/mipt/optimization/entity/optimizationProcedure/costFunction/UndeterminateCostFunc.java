@@ -1,26 +1,51 @@
 package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
 
-import org.apache.commons.collections4.map.MultiKeyMap;
-import org.jscience.mathematics.number.Real;
-import org.jscience.mathematics.vector.DenseVector;
-import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.inOut.Config;
-import ru.mipt.optimization.entity.typeWrapper.FieldWrapper;
+import ru.mipt.optimization.supportive.DoubleVector;
 import ru.mipt.optimization.supportive.MathHelp;
+import ru.mipt.optimization.supportive.ParallelHelp;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Created by Inna on 21.07.2017.
  * Represents the cost function which domain is unknown.
+ * If {@link ru.mipt.optimization.entity.inOut.Config#getEvaluationExecutor()} is set
+ * partial derivatives of the gradient and sampled subgradients are calculated concurrently on it.
+ * If the {@link CostFunction#setBatchRule batch rule} is set finite-difference stencils are evaluated by its one call instead.
+ * With {@link GradientEstimation#SPSA} gradient is estimated by simultaneous random perturbations of all the coordinates,
+ * which costs two evaluations per perturbation whatever the dimension.
+ * Partial derivatives are calculated by the {@link DifferenceScheme} from the configurations. If the step is adaptive
+ * it's estimated for every coordinate at the first derivative along it and again every 50 derivatives,
+ * since the curvature changes along the trajectory, to minimize the sum
+ * of the truncation error of the scheme and the roundoff error of the function,
+ * otherwise it's accuracyOfDomainSearch.
+ * If the element rule is set {@link GradientEstimation#SPARSE_FINITE_DIFFERENCES} perturbs
+ * structurally independent coordinates of the partially separable function together (see {@link SparsityPattern}).
+ * If the {@link DomainIndex} is set, points probed while searching the domain are remembered in it
+ * so that subsequent searches start from the nearest known domain point in their direction
+ * and don't probe known points again.
  */
 public class UndeterminateCostFunc extends CostFunction  {
 
-    private MultiKeyMap<Vector<Real>, Vector<Real>> covered = new MultiKeyMap<>();
+    private static final double ROUNDOFF = 1e-15; // relative error of the evaluation of the function
+    private static final double MIN_RELATIVE_STEP = 1e-10;
+    private static final double MAX_RELATIVE_STEP = 1e-2;
+    private static final int RECALIBRATION_PERIOD = 50; // derivatives along the coordinate between estimations of its step
 
-    private int recursionNum = 0;
-    private Map.Entry<Vector<Real>, Vector<Real>> currentSearchPare;
+    private final AtomicLong domainProbes = new AtomicLong(); // number of calls of the function to search domain
+    private final Random random; // signs of the simultaneous perturbations
+    private final AtomicLongArray steps; // bits of the adaptive steps of the coordinates, NaN until estimated
+    private final AtomicIntegerArray stepUses; // derivatives along the coordinates since their steps were estimated
+    private Function<DoubleVector, DoubleVector> elementRule; // values of the elements of the function, can be null
+    private volatile SparsityPattern sparsityPattern; // dependencies of the elements, null until declared or detected
 
     /**
      * Creates new UndeterminateCostFunc with specified accuracy.
@@ -28,118 +53,643 @@ public class UndeterminateCostFunc extends CostFunction  {
      * @param dimension dimension of given function
      * @param config - configurations, including interval of domain search vision and the search range
      */
-    public UndeterminateCostFunc(Function<Vector<Real>, Double> functionRule, int dimension, Config config) {
+    public UndeterminateCostFunc(Function<DoubleVector, Double> functionRule, int dimension, Config config) {
         super(functionRule, dimension, config);
+        this.random = (config.getSpsaSeed() != null) ? new Random(config.getSpsaSeed()) : new Random();
+        this.steps = new AtomicLongArray(dimension);
+        this.stepUses = new AtomicIntegerArray(dimension);
+        for (int i = 0; i < dimension; i++) steps.set(i, Double.doubleToLongBits(Double.NaN));
     }
 
 
     @Override
-    public Vector<Real> getNearestDomainPoint(Vector<Real> pointNotInDomain,
-                                     Vector<Real> directionPoint) {
+    public DoubleVector getNearestDomainPoint(DoubleVector pointNotInDomain,
+                                     DoubleVector directionPoint) {
         checkDimension(pointNotInDomain);
         checkDimension(directionPoint);
 
         if (apply(pointNotInDomain) != null) throw new IllegalArgumentException("argument pointNotInDomain " +
                 "can't be in the domain of the function");
 
-        Vector<Real> find = covered.get(pointNotInDomain, directionPoint);
-        if ( find != null) return find;
-        initiateSearch(pointNotInDomain, directionPoint);
-        return covered.get(pointNotInDomain,directionPoint);
+        return searchDomain(pointNotInDomain, directionPoint).domainPoint;
+    }
+
+    /**
+     * Searches nearest domain point to the given point not in domain in the direction to the given domain point.
+     * Bisects the segment between them, keeping its ends out of and in the domain,
+     * until it's shorter than accuracyOfDomainSearch or the evaluation budget
+     * {@link ru.mipt.optimization.entity.inOut.Config#getDomainSearchBudget()} is spent.
+     * If the {@link DomainIndex} knows domain point on the segment to directionPoint (within accuracyOfDomainSearch)
+     * nearer to the given point, bisection starts from it, and if it's nearer than accuracyOfDomainSearch
+     * it's returned without probes. Known points in other directions aren't taken.
+     * @param pointNotInDomain - point not in the domain of the cost function
+     * @param directionPoint - point in the domain to specify the search direction
+     * @return results of the search, including found point and number of the probes spent
+     */
+    public DomainSearch searchDomain(DoubleVector pointNotInDomain, DoubleVector directionPoint) {
+        checkDimension(pointNotInDomain);
+        checkDimension(directionPoint);
+
+        DomainSearch search = new DomainSearch(pointNotInDomain, directionPoint);
+        DoubleVector out = correctToSearchRange(pointNotInDomain);
+        DoubleVector in = directionPoint;
+        DomainIndex index = getDomainIndex();
+        DoubleVector known = (index == null) ? null : index.getNearestInDomain(out, onSegment(out, in));
+        if (known != null && MathHelp.getDistance(out, known) < MathHelp.getDistance(out, in)) in = known;
+        if (MathHelp.getDistance(out, in) > config.accuracyOfDomainSearch) {
+            if (search.probe(out)) in = out;
+            else
+                while (MathHelp.getDistance(out, in) > config.accuracyOfDomainSearch && !search.isExhausted()) {
+                    DoubleVector middle = out.plus(in).times(0.5);
+                    if (search.probe(middle)) in = middle;
+                    else out = middle;
+                }
+        }
+
+        search.domainPoint = in;
+        return search;
+    }
+
+    /**
+     * Returns total number of the calls of the function spent to search its domain.
+     * Points answered by the domain index aren't counted.
+     * @return total number of the calls of the function spent to search its domain
+     */
+    public long getDomainProbesNumber() {
+        return domainProbes.get();
+    }
+
+    /**
+     * Returns adaptive steps of the finite differences of all the coordinates
+     * @return steps of the coordinates, NaN for the coordinates which step hasn't been estimated yet
+     */
+    public DoubleVector getDifferenceSteps() {
+        double[] res = new double[steps.length()];
+        for (int i = 0; i < res.length; i++) res[i] = Double.longBitsToDouble(steps.get(i));
+        return DoubleVector.wrap(res);
     }
 
     @Override
-    public double getPartialDerivative(Vector<Real> x, int dir) {
+    public double getPartialDerivative(DoubleVector x, int dir) {
         checkDimension(x);
 
         if (dir < 0 || dir > x.getDimension()-1)
             throw new IllegalArgumentException("Given direction isn't within its bounds!");
 
-        recursionNum = 0;
-        Vector<Real> xPlus = addDelta(x,dir);
-
         Double f = apply(x);
         if (f == null)
             throw new IllegalArgumentException("Given point x is out of the domain. Can't calculate partial derivative!");
 
-        Double fPlus = apply(xPlus);
-
-        if (fPlus == null) fPlus = apply(getNearestDomainPoint(xPlus, x));
-
-        double d = fPlus-f;
-        if (d == 0) d= 0.00001;
-        return d/(config.accuracyOfDomainSearch);
+        return getPartialDerivative(x, dir, f);
     }
 
     @Override
-    public Vector<Real> getGradient(Vector<Real> x) {
+    public DoubleVector getGradient(DoubleVector x) {
         checkDimension(x);
+        if (isSparse()) return getSparseGradient(x, config.getEvaluationExecutor());
+        if (config.getGradientEstimation() == GradientEstimation.SPSA) return getSpsaGradient(x);
+        if (getBatchRule() != null) return getGradients(Collections.singletonList(x)).get(0);
+        return getGradient(x, config.getEvaluationExecutor());
+    }
 
-        Real[] reals = new Real[x.getDimension()];
-        for (int i = 0; i < reals.length; i++ ) {
-            reals[i] = Real.valueOf(getPartialDerivative(x, i));
-        }
-        return DenseVector.valueOf(reals);
+    @Override
+    public DoubleVector getGradient(DoubleVector x, Double f) {
+        if (f == null || isSparse() || config.getGradientEstimation() == GradientEstimation.SPSA) return getGradient(x);
+        checkDimension(x);
+        if (getBatchRule() != null)
+            return getGradients(Collections.singletonList(x), Collections.singletonList(f)).get(0);
+        return getGradient(x, f, config.getEvaluationExecutor());
     }
 
     @Override
-    public List<Vector<Real>> getSubGradients(Vector<Real> x, double area) {
+    public List<DoubleVector> getSubGradients(DoubleVector x, double area) {
         checkDimension(x);
 
         int n = (int) (area/config.accuracyOfDomainSearch);
 
-        List<Vector<Real>> subgradients = new LinkedList<>();
-        Vector<Real> newX = DenseVector.valueOf(x);
+        // one sample per step of the walk along the diagonal, its value is evaluated once and reused by its stencil.
+        // The walk is sequential, since the point projected at the domain border is the start of the next step.
+        // Points repeated at the border get their value and gradient once, but stay one sample each
+        List<DoubleVector> samples = new ArrayList<>(n);
+        Map<DoubleVector, Double> sampled = new LinkedHashMap<>();
+        DoubleVector newX = x;
+        int budget = config.getDomainSearchBudget();
         for (int i=0; i<n; i++) {
-            recursionNum = 0;
-            newX = addDelta(newX,null);
-            if (apply(newX) == null) newX = getNearestDomainPoint(newX, x);
-            subgradients.add(getGradient(newX));
+            Double f = null;
+            for (int probes = 0; probes < budget && f == null; probes++) { // as addDelta, but keeps the value
+                if (probes > 0) domainProbes.incrementAndGet();
+                newX = newX.plus(config.accuracyOfDomainSearch);
+                f = sampled.containsKey(newX) ? sampled.get(newX) : apply(newX);
+            }
+            if (f == null) {
+                newX = searchDomain(newX, x).domainPoint;
+                f = sampled.containsKey(newX) ? sampled.get(newX) : apply(newX);
+            }
+            if (f == null) continue;
+            samples.add(newX);
+            sampled.put(newX, f);
+        }
+        List<DoubleVector> points = new ArrayList<>(sampled.keySet());
+        final List<Double> values = new ArrayList<>(sampled.values());
+
+        List<DoubleVector> gradients = new ArrayList<>(points.size());
+        ExecutorService executor = config.getEvaluationExecutor();
+        boolean stencils = config.getGradientEstimation() != GradientEstimation.SPSA && !isSparse();
+        if (getBatchRule() != null && stencils) {
+            gradients.addAll(getGradients(points, values));
+        } else if (executor == null || points.size() < 2) {
+            for (int k = 0; k < points.size(); k++) gradients.add(getSampledGradient(points.get(k), values.get(k)));
+        } else {
+            List<Callable<DoubleVector>> tasks = new ArrayList<>(points.size());
+            for (int k = 0; k < points.size(); k++) {
+                final DoubleVector point = points.get(k);
+                final double f = values.get(k);
+                tasks.add(new Callable<DoubleVector>() {
+                    @Override
+                    public DoubleVector call() {
+                        return getSampledGradient(point, f);
+                    }
+                });
+            }
+            gradients.addAll(ParallelHelp.invokeAll(executor, tasks));
         }
+
+        Map<DoubleVector, DoubleVector> gradientOf = new HashMap<>();
+        for (int k = 0; k < points.size(); k++) gradientOf.put(points.get(k), gradients.get(k));
+        List<DoubleVector> subgradients = new LinkedList<>();
+        for (DoubleVector sample: samples) subgradients.add(gradientOf.get(sample));
         return subgradients;
     }
 
-    // writes in variable "in" nearest to the "out" domain point
-    private void domainSearch(Vector<Real> out, Vector<Real> in, int iteration) {
-        if (recursionNum > config.getMaxRecursionNumber()) return;
-        recursionNum++;
+    /**
+     * Sets seed of the random perturbations of {@link GradientEstimation#SPSA},
+     * e.g. to give every start of the multi-start its own reproducible sequence
+     * @param seed - seed of the random perturbations
+     */
+    public void setSpsaSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
 
-        Double curDistance = MathHelp.getDistance(out,in) /(2*iteration);
-        Vector<Real> curPoint = MathHelp.addDistance(out,in, curDistance);
-        if (apply(curPoint) != null) {
-            covered.put(currentSearchPare.getKey(),currentSearchPare.getValue(),curPoint);
-            iteration = 1;
-            if (curDistance > config.accuracyOfDomainSearch) domainSearch(out,curPoint,iteration);
-        } else if (curDistance > config.accuracyOfDomainSearch) {
-            iteration++;
-            domainSearch(out,in,iteration);
-        } else if (iteration != 1) {
-            domainSearch(curPoint, in, 1);
+    public Function<DoubleVector, DoubleVector> getElementRule() {
+        return elementRule;
+    }
+
+    /**
+     * Returns dependency structure of the elements, declared or detected at the first sparse gradient
+     * @return dependency structure of the elements or null if it's neither declared nor detected yet
+     */
+    public SparsityPattern getSparsityPattern() {
+        return sparsityPattern;
+    }
+
+    /**
+     * Sets rule for mapping the point in the values of the elements of this function, which sum is the function,
+     * to estimate the gradient by {@link GradientEstimation#SPARSE_FINITE_DIFFERENCES}
+     * @param elementRule - rule for mapping the point in the values of the elements, null if it's out of the domain.
+     *                    If null the gradient is estimated by {@link GradientEstimation#FINITE_DIFFERENCES}.
+     * @param sparsityPattern - dependencies of the elements. If null they're detected at the first sparse gradient
+     *                        (see {@link SparsityPattern#detect})
+     * @throws IllegalArgumentException if dimension of the pattern doesn't match the dimension of this function
+     */
+    public void setElementRule(Function<DoubleVector, DoubleVector> elementRule, SparsityPattern sparsityPattern) {
+        if (sparsityPattern != null && sparsityPattern.getDimension() != getDimension())
+            throw new IllegalArgumentException("Dimension of the sparsity pattern doesn't match dimension of the function!");
+        this.elementRule = elementRule;
+        this.sparsityPattern = sparsityPattern;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    // estimates gradient in the sampled point with known value f in it,
+    // sequentially not to wait for the executor the samples run on
+    private DoubleVector getSampledGradient(DoubleVector point, double f) {
+        if (isSparse()) return getSparseGradient(point, null);
+        if (config.getGradientEstimation() == GradientEstimation.SPSA) return getSpsaGradient(point);
+        return getGradient(point, f, null);
+    }
+
+    private boolean isSparse() {
+        return config.getGradientEstimation() == GradientEstimation.SPARSE_FINITE_DIFFERENCES && elementRule != null;
+    }
+
+    // calculates gradient in the given point x perturbing groups of structurally independent coordinates together,
+    // every element is changed only by its own coordinate of the group. Groups are evaluated on the executor if it isn't null
+    private DoubleVector getSparseGradient(final DoubleVector x, ExecutorService executor) {
+        SparsityPattern pattern = sparsityPattern;
+        if (pattern == null) {
+            pattern = SparsityPattern.detect(elementRule, x, config.accuracyOfDomainSearch);
+            sparsityPattern = pattern;
+        }
+        final DoubleVector elements = elementRule.apply(x);
+        if (elements == null)
+            throw new IllegalArgumentException("Given point x is out of the domain. Can't calculate gradient!");
+
+        int n = getDimension();
+        DifferenceScheme scheme = isLegacyDifference() ? DifferenceScheme.FORWARD : config.getDifferenceScheme();
+        double[] offsets = getOffsets(scheme);
+        double[] h = new double[n];
+        for (int i = 0; i < n; i++) h[i] = getStep(x, i);
+
+        List<DoubleVector> stencil = new ArrayList<>(pattern.getGroupsNumber() * offsets.length);
+        for (int g = 0; g < pattern.getGroupsNumber(); g++) {
+            int[] group = pattern.getGroup(g);
+            for (double offset: offsets) {
+                double[] point = x.toArray();
+                for (int i: group) point[i] += offset * h[i];
+                stencil.add(DoubleVector.wrap(point));
+            }
         }
+        List<DoubleVector> values = evaluateElements(stencil, executor);
+
+        double[] gradient = new double[n];
+        boolean[] outOfDomain = new boolean[pattern.getGroupsNumber()];
+        for (int g = 0; g < outOfDomain.length; g++)
+            for (int s = 0; s < offsets.length; s++)
+                if (values.get(g * offsets.length + s) == null) outOfDomain[g] = true;
+        double[] elementValues = new double[offsets.length];
+        for (int k = 0; k < pattern.getElementsNumber(); k++)
+            for (int i: pattern.getDependencies(k)) {
+                int g = pattern.getGroupOf(i);
+                if (outOfDomain[g]) continue;
+                for (int s = 0; s < offsets.length; s++) elementValues[s] = values.get(g * offsets.length + s).get(k);
+                gradient[i] += getDifference(scheme, elements.get(k), elementValues, h[i]);
+            }
+
+        Double f = null; // is evaluated only if some group is out of the domain
+        for (int i = 0; i < n; i++)
+            if (outOfDomain[pattern.getGroupOf(i)]) {
+                if (f == null) f = apply(x);
+                if (f == null)
+                    throw new IllegalArgumentException("Given point x is out of the domain. Can't calculate gradient!");
+                gradient[i] = getPartialDerivative(x, i, f);
+            }
+        return DoubleVector.wrap(gradient);
     }
 
-    private void initiateSearch(Vector<Real> pointNotInDomain, Vector<Real> directionPoint) {
-        recursionNum = 0;
-        currentSearchPare = new AbstractMap.SimpleEntry<Vector<Real>, Vector<Real>>(pointNotInDomain,
-                directionPoint);
+    // evaluates elements in all the given points, concurrently on the executor if it isn't null
+    private List<DoubleVector> evaluateElements(List<DoubleVector> points, ExecutorService executor) {
+        List<DoubleVector> res = new ArrayList<>(points.size());
+        if (executor == null || points.size() < 2) {
+            for (DoubleVector point: points) res.add(elementRule.apply(point));
+            return res;
+        }
+        List<Callable<DoubleVector>> evaluations = new ArrayList<>(points.size());
+        for (final DoubleVector point: points)
+            evaluations.add(new Callable<DoubleVector>() {
+                @Override
+                public DoubleVector call() {
+                    return elementRule.apply(point);
+                }
+            });
+        return ParallelHelp.invokeAll(executor, evaluations);
+    }
 
-        Vector<Real> correctedToRange = correctToSearchRange(pointNotInDomain);
-        covered.put(pointNotInDomain, directionPoint, directionPoint);
-        if (apply(correctedToRange) != null) covered.put(pointNotInDomain, directionPoint, correctedToRange);
-        else domainSearch(correctedToRange, directionPoint, 1);
+    // returns offsets of the stencil of the scheme in the steps
+    private static double[] getOffsets(DifferenceScheme scheme) {
+        switch (scheme) {
+            case CENTRAL: return new double[] {1, -1};
+            case RICHARDSON: return new double[] {1, -1, 0.5, -0.5};
+            default: return new double[] {1};
+        }
+    }
+
+    // returns derivative by the scheme from the value f in the point and the values in its stencil of the step h
+    private static double getDifference(DifferenceScheme scheme, double f, double[] values, double h) {
+        switch (scheme) {
+            case CENTRAL: return (values[0] - values[1]) / (2 * h);
+            case RICHARDSON: return (4 * (values[2] - values[3]) / h - (values[0] - values[1]) / (2 * h)) / 3;
+            default: return (values[0] - f) / h;
+        }
+    }
+
+    // calculates gradient in the given point x, concurrently on the executor if it isn't null
+    private DoubleVector getGradient(DoubleVector x, ExecutorService executor) {
+        Double f = apply(x);
+        if (f == null)
+            throw new IllegalArgumentException("Given point x is out of the domain. Can't calculate partial derivative!");
+        return getGradient(x, f, executor);
+    }
+
+    // calculates gradient in the given point x with already known value f in it
+    private DoubleVector getGradient(final DoubleVector x, final double f, ExecutorService executor) {
+        double[] gradient = new double[x.getDimension()];
+        if (executor == null || gradient.length < 2) {
+            for (int i = 0; i < gradient.length; i++ ) {
+                gradient[i] = getPartialDerivative(x, i, f);
+            }
+        } else {
+            List<Callable<Double>> probes = new ArrayList<>(gradient.length);
+            for (int i = 0; i < gradient.length; i++ ) {
+                final int dir = i;
+                probes.add(new Callable<Double>() {
+                    @Override
+                    public Double call() {
+                        return getPartialDerivative(x, dir, f);
+                    }
+                });
+            }
+            List<Double> partials = ParallelHelp.invokeAll(executor, probes);
+            for (int i = 0; i < gradient.length; i++ ) gradient[i] = partials.get(i);
+        }
+        return DoubleVector.wrap(gradient);
+    }
+
+    // estimates gradient in the given point x by simultaneous perturbations of all the coordinates by random signs.
+    // Every perturbation costs two evaluations whatever the dimension, estimations of all perturbations are averaged
+    private DoubleVector getSpsaGradient(DoubleVector x) {
+        int n = getDimension();
+        int perturbationsNum = config.getSpsaPerturbationsNum();
+        double c = config.accuracyOfDomainSearch;
+
+        double[][] signs = new double[perturbationsNum][n];
+        List<DoubleVector> stencil = new ArrayList<>(2 * perturbationsNum);
+        for (int k = 0; k < perturbationsNum; k++) {
+            double[] plus = new double[n];
+            double[] minus = new double[n];
+            for (int i = 0; i < n; i++) {
+                signs[k][i] = random.nextBoolean() ? 1 : -1;
+                plus[i] = x.get(i) + c * signs[k][i];
+                minus[i] = x.get(i) - c * signs[k][i];
+            }
+            stencil.add(DoubleVector.wrap(plus));
+            stencil.add(DoubleVector.wrap(minus));
+        }
+        List<Double> values = applyAll(stencil);
+
+        double[] gradient = new double[n];
+        int estimationsNum = 0;
+        Double f = null; // is evaluated only if some perturbation is one-sided
+        for (int k = 0; k < perturbationsNum; k++) {
+            Double fPlus = values.get(2 * k);
+            Double fMinus = values.get(2 * k + 1);
+            double difference;
+            if (fPlus != null && fMinus != null) difference = (fPlus - fMinus) / (2 * c);
+            else if (fPlus == null && fMinus == null) continue;
+            else {
+                if (f == null) f = apply(x);
+                if (f == null)
+                    throw new IllegalArgumentException("Given point x is out of the domain. Can't calculate gradient!");
+                difference = (fPlus != null) ? (fPlus - f) / c : (f - fMinus) / c;
+            }
+            for (int i = 0; i < n; i++) gradient[i] += difference / signs[k][i];
+            estimationsNum++;
+        }
+        if (estimationsNum == 0) // all the perturbations are out of the domain
+            return (f != null) ? getGradient(x, f, null) : getGradient(x, (ExecutorService) null);
+
+        for (int i = 0; i < n; i++) gradient[i] /= estimationsNum;
+        return DoubleVector.wrap(gradient);
+    }
+
+    // calculates gradients in all the given points by one batch of their finite-difference stencils
+    private List<DoubleVector> getGradients(List<DoubleVector> points) {
+        return getGradients(points, null);
+    }
+
+    // calculates gradients in all the given points by one batch of their finite-difference stencils,
+    // values in the points themselves are evaluated by the same batch unless they're known
+    private List<DoubleVector> getGradients(List<DoubleVector> points, List<Double> known) {
+        int n = getDimension();
+        List<DoubleVector> stencils = new ArrayList<>();
+        List<List<DoubleVector>> partialStencils = new ArrayList<>(points.size() * n);
+        for (DoubleVector x: points) {
+            if (known == null) stencils.add(x);
+            for (int i = 0; i < n; i++) {
+                List<DoubleVector> stencil = getStencil(x, i);
+                partialStencils.add(stencil);
+                stencils.addAll(stencil);
+            }
+        }
+        List<Double> values = applyAll(stencils);
+
+        List<DoubleVector> gradients = new ArrayList<>(points.size());
+        int from = 0;
+        for (int k = 0; k < points.size(); k++) {
+            Double f = (known == null) ? values.get(from++) : known.get(k);
+            if (f == null)
+                throw new IllegalArgumentException("Given point x is out of the domain. Can't calculate partial derivative!");
+            double[] gradient = new double[n];
+            for (int i = 0; i < n; i++) {
+                List<DoubleVector> stencil = partialStencils.get(k * n + i);
+                gradient[i] = getPartialDerivative(points.get(k), i, f, stencil,
+                        values.subList(from, from + stencil.size()));
+                from += stencil.size();
+            }
+            gradients.add(DoubleVector.wrap(gradient));
+        }
+        return gradients;
+    }
+
+    // calculates partial derivative in the given point x with already known value f in it
+    private double getPartialDerivative(DoubleVector x, int dir, double f) {
+        List<DoubleVector> stencil = getStencil(x, dir);
+        return getPartialDerivative(x, dir, f, stencil, applyAll(stencil));
+    }
+
+    // calculates partial derivative in the given point x by the values of the function in its stencil
+    private double getPartialDerivative(DoubleVector x, int dir, double f, List<DoubleVector> stencil, List<Double> values) {
+        if (isLegacyDifference()) // fixed forward step of accuracyOfDomainSearch
+            return (values.get(0) != null) ? getDifference(values.get(0) - f) : getForwardDerivative(x, dir, f);
+
+        double xi = x.get(dir);
+        Double fPlus = values.get(0);
+        Double res;
+        switch (config.getDifferenceScheme()) {
+            case RICHARDSON:
+                if (!values.contains(null)) {
+                    double wide = (fPlus - values.get(1)) / (stencil.get(0).get(dir) - stencil.get(1).get(dir));
+                    double narrow = (values.get(2) - values.get(3)) / (stencil.get(2).get(dir) - stencil.get(3).get(dir));
+                    return (4 * narrow - wide) / 3;
+                }
+                res = getCentralDerivative(x, dir, f, stencil, values); // over the wide steps
+                if (res != null) return res;
+                break;
+            case CENTRAL:
+                res = getCentralDerivative(x, dir, f, stencil, values);
+                if (res != null) return res;
+                break;
+            default:
+                if (fPlus != null) return (fPlus - f) / (stencil.get(0).get(dir) - xi);
+                DoubleVector xMinus = x.plus(dir, xi - stencil.get(0).get(dir));
+                Double fMinus = apply(xMinus);
+                if (fMinus != null) return (f - fMinus) / (xi - xMinus.get(dir));
+        }
+        return getForwardDerivative(x, dir, f); // both sides are out of the domain, searches the domain further
+    }
+
+    // calculates central difference by the first two points of the stencil, one-sided one if one of them is
+    // out of the domain. Returns null if both of them are out of the domain
+    private Double getCentralDerivative(DoubleVector x, int dir, double f, List<DoubleVector> stencil,
+                                        List<Double> values) {
+        double xi = x.get(dir);
+        Double fPlus = values.get(0);
+        Double fMinus = values.get(1);
+        if (fPlus != null && fMinus != null)
+            return (fPlus - fMinus) / (stencil.get(0).get(dir) - stencil.get(1).get(dir));
+        if (fPlus != null) return (fPlus - f) / (stencil.get(0).get(dir) - xi);
+        if (fMinus != null) return (f - fMinus) / (xi - stencil.get(1).get(dir));
+        return null;
+    }
+
+    // returns points to evaluate the function in to calculate partial derivative along the direction
+    private List<DoubleVector> getStencil(DoubleVector x, int dir) {
+        double h = getStep(x, dir);
+        switch (isLegacyDifference() ? DifferenceScheme.FORWARD : config.getDifferenceScheme()) {
+            case CENTRAL: return Arrays.asList(x.plus(dir, h), x.plus(dir, -h));
+            case RICHARDSON: return Arrays.asList(x.plus(dir, h), x.plus(dir, -h), x.plus(dir, h / 2), x.plus(dir, -h / 2));
+            default: return Collections.singletonList(x.plus(dir, h));
+        }
+    }
+
+    // returns step of the finite differences along the direction if it's adaptive, estimating it in the given point
+    // the first time and every RECALIBRATION_PERIOD calls then
+    private double getStep(DoubleVector x, int dir) {
+        if (!config.isAdaptiveDifferenceStep()) return config.accuracyOfDomainSearch;
+        double h = Double.longBitsToDouble(steps.get(dir));
+        if (Double.isNaN(h) || stepUses.incrementAndGet(dir) >= RECALIBRATION_PERIOD) {
+            h = estimateStep(x, dir);
+            steps.set(dir, Double.doubleToLongBits(h));
+            stepUses.set(dir, 0);
+        }
+        return h;
+    }
+
+    // estimates step along the direction minimizing the sum of truncation and roundoff errors of the scheme.
+    // Second and third derivatives in the truncation errors are estimated by the differences with the step
+    // accuracyOfDomainSearch, it's kept if their stencil is out of the domain
+    private double estimateStep(DoubleVector x, int dir) {
+        double h = config.accuracyOfDomainSearch;
+        List<Double> values = applyAll(Arrays.asList(x, x.plus(dir, h), x.plus(dir, -h),
+                x.plus(dir, 2 * h), x.plus(dir, -2 * h)));
+        if (values.contains(null)) return h;
+
+        double f = values.get(0), fPlus = values.get(1), fMinus = values.get(2);
+        double fPlus2 = values.get(3), fMinus2 = values.get(4);
+        double roundoff = ROUNDOFF * Math.max(Math.abs(f), 1);
+        double second = Math.abs(fPlus - 2 * f + fMinus) / (h * h);
+        double third = Math.abs(fPlus2 - 2 * fPlus + 2 * fMinus - fMinus2) / (2 * h * h * h);
+
+        double step;
+        switch (config.getDifferenceScheme()) {
+            case CENTRAL: step = Math.cbrt(3 * roundoff / third); break; // h^2|f'''|/6 + roundoff/h
+            case RICHARDSON: step = 2 * Math.cbrt(3 * roundoff / third); break; // its narrow step is the central one
+            default: step = 2 * Math.sqrt(roundoff / second); // h|f''|/2 + 2roundoff/h
+        }
+        if (Double.isNaN(step)) return h;
+
+        double scale = Math.max(Math.abs(x.get(dir)), 1);
+        return Math.min(Math.max(step, MIN_RELATIVE_STEP * scale), MAX_RELATIVE_STEP * scale);
+    }
+
+    // returns true if the original forward differences with the step accuracyOfDomainSearch are used
+    boolean isLegacyDifference() {
+        return config.getDifferenceScheme() == DifferenceScheme.FORWARD && !config.isAdaptiveDifferenceStep();
+    }
+
+    // calculates forward difference searching the domain further in the direction if the step is out of it
+    private double getForwardDerivative(DoubleVector x, int dir, double f) {
+        DoubleVector xPlus = addDelta(x,dir);
+
+        Double fPlus = apply(xPlus);
+
+        if (fPlus == null) fPlus = apply(getNearestDomainPoint(xPlus, x));
+
+        return getDifference(fPlus - f);
+    }
+
+    // returns finite difference by the change of the function over the fixed step of accuracyOfDomainSearch
+    double getDifference(double d) {
+        if (d == 0) d= 0.00001;
+        return d/(config.accuracyOfDomainSearch);
     }
 
     //adds delta (taken from accuracyOfDomainSearch) to all elements of the vector or if dim != null only to given dimension
-    //if new point is out of the domain recursivly adds one more delta
-    private Vector<Real> addDelta(Vector<Real> x, Integer dim) {
-        if (recursionNum > config.getMaxRecursionNumber()) return x;
-        recursionNum++;
-
-        Real[] reals = new Real[x.getDimension()];
-        for (int i = 0; i < reals.length; i++ )
-            if ( (dim != null && i == dim) || dim==null ) reals[i] = x.get(i).plus(Real.valueOf(config.accuracyOfDomainSearch));
-            else reals[i] =  x.get(i);
-        Vector<Real> xPlus = DenseVector.valueOf(reals);
-        return apply(xPlus) != null ? xPlus: addDelta(xPlus, dim);
+    //while new point is out of the domain and evaluation budget isn't spent
+    private DoubleVector addDelta(DoubleVector x, Integer dim) {
+        int budget = config.getDomainSearchBudget();
+        for (int probes = 0; probes < budget; probes++) {
+            DoubleVector xPlus = (dim == null) ? x.plus(config.accuracyOfDomainSearch)
+                    : x.plus(dim, config.accuracyOfDomainSearch);
+            if (isInDomain(xPlus)) return xPlus;
+            x = xPlus;
+        }
+        return x;
+    }
+
+    // returns condition for the point to lie on the segment from the given point to the end, not farther from it
+    // than accuracyOfDomainSearch
+    private Predicate<DoubleVector> onSegment(final DoubleVector from, final DoubleVector to) {
+        final DoubleVector direction = to.minus(from);
+        final double length2 = direction.times(direction);
+        final double accuracy2 = config.accuracyOfDomainSearch * config.accuracyOfDomainSearch;
+        return new Predicate<DoubleVector>() {
+            @Override
+            public boolean test(DoubleVector point) {
+                if (length2 == 0) return false;
+                DoubleVector v = point.minus(from);
+                double t = v.times(direction) / length2;
+                if (t <= 0 || t > 1) return false;
+                DoubleVector deviation = v.minus(direction.times(t));
+                return deviation.times(deviation) <= accuracy2;
+            }
+        };
+    }
+
+    // returns true if the given point is in the domain, consulting the domain index first
+    private boolean isInDomain(DoubleVector point) {
+        DomainIndex index = getDomainIndex();
+        Boolean known = (index == null) ? null : index.isInDomain(point);
+        if (known != null) return known;
+
+        domainProbes.incrementAndGet();
+        boolean inDomain = apply(point) != null;
+        if (index != null) index.add(point, inDomain);
+        return inDomain;
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    /**
+     * Represents one search of the nearest domain point and its results.
+     * Is local to the search so that searches can run concurrently.
+     */
+    public class DomainSearch {
+        public final DoubleVector pointNotInDomain;
+        public final DoubleVector directionPoint;
+        private DoubleVector domainPoint;
+        private int probes = 0;
+
+        private DomainSearch(DoubleVector pointNotInDomain, DoubleVector directionPoint) {
+            this.pointNotInDomain = pointNotInDomain;
+            this.directionPoint = directionPoint;
+        }
+
+        /**
+         * Returns found domain point. It's directionPoint itself if nothing nearer has been found.
+         * @return found domain point
+         */
+        public DoubleVector getDomainPoint() {
+            return domainPoint;
+        }
+
+        /**
+         * Returns number of the probes of the points spent on this search, including answered by the domain index
+         * @return number of the probes of the points spent on this search
+         */
+        public int getProbesNumber() {
+            return probes;
+        }
+
+        public boolean isExhausted() {
+            return probes >= config.getDomainSearchBudget();
+        }
+
+        // returns true if the given point is in the domain
+        private boolean probe(DoubleVector point) {
+            probes++;
+            return isInDomain(point);
+        }
     }
 }
@@ -0,0 +1,258 @@
+package ru.mipt.optimization.entity.typeWrapper;
+
+import javolution.text.Text;
+import org.jscience.mathematics.number.Number;
+import org.jscience.mathematics.structure.Field;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.Arrays;
+
+/**
+ * Represents the algebraic field of the dual numbers for forward-mode automatic differentiation.
+ * Carries the value of the real number together with the vector of its derivatives
+ * with respect to the seeded variables, so the cost function written over Dual numbers
+ * gives its value and gradient (or directional derivative) in one pass.
+ * Constants carry no derivatives at all and are treated as having zero derivatives.
+ */
+public final class Dual extends Number<Dual> implements Field<Dual> {
+
+    private static final long serialVersionUID = 1L;
+    private static final double[] NO_DERIVATIVES = new double[0];
+
+    private final double value;
+    private final double[] derivatives;
+
+    private Dual(double value, double[] derivatives) {
+        this.value = value;
+        this.derivatives = derivatives;
+    }
+
+    /**
+     * Returns Dual number for the constant, i.e. with zero derivatives
+     * @param value - value of the constant
+     * @return Dual number for the constant
+     */
+    public static Dual constant(double value) {
+        return new Dual(value, NO_DERIVATIVES);
+    }
+
+    /**
+     * Returns Dual number for the variable with the given index among the given number of variables
+     * @param value - value of the variable
+     * @param index - index of the variable, its derivative is one, all others are zero
+     * @param variablesNum - number of variables to differentiate with respect to
+     * @return Dual number for the variable
+     */
+    public static Dual variable(double value, int index, int variablesNum) {
+        double[] derivatives = new double[variablesNum];
+        derivatives[index] = 1;
+        return new Dual(value, derivatives);
+    }
+
+    /**
+     * Returns Dual numbers for all the elements of the given point seeded to calculate the gradient
+     * @param point - point to seed
+     * @return Dual numbers for all the elements of the given point
+     */
+    public static Dual[] gradientSeed(DoubleVector point) {
+        Dual[] seed = new Dual[point.getDimension()];
+        for (int i = 0; i < seed.length; i++)
+            seed[i] = variable(point.get(i), i, seed.length);
+        return seed;
+    }
+
+    /**
+     * Returns Dual numbers for all the elements of the given point seeded to calculate
+     * the directional derivative in the given direction, i.e. with the single derivative each
+     * @param point - point to seed
+     * @param direction - direction of the derivative. Must be of the point's dimension.
+     * @return Dual numbers for all the elements of the given point
+     */
+    public static Dual[] directionalSeed(DoubleVector point, DoubleVector direction) {
+        if (point.getDimension() != direction.getDimension())
+            throw new IllegalArgumentException("Dimension of the direction doesn't coincide point's dimension");
+        Dual[] seed = new Dual[point.getDimension()];
+        for (int i = 0; i < seed.length; i++)
+            seed[i] = new Dual(point.get(i), new double[] {direction.get(i)});
+        return seed;
+    }
+
+    /**
+     * Returns Dual constants for all the elements of the given point, i.e. only to calculate the value
+     * @param point - point to convert
+     * @return Dual constants for all the elements of the given point
+     */
+    public static Dual[] constants(DoubleVector point) {
+        Dual[] constants = new Dual[point.getDimension()];
+        for (int i = 0; i < constants.length; i++)
+            constants[i] = constant(point.get(i));
+        return constants;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns derivative with respect to the variable with the given index
+     * @param index - index of the variable
+     * @return derivative with respect to the variable with the given index
+     */
+    public double getDerivative(int index) {
+        return (index < derivatives.length) ? derivatives[index] : 0;
+    }
+
+    /**
+     * Returns vector of the derivatives with respect to all the given number of variables
+     * @param variablesNum - number of variables
+     * @return vector of the derivatives
+     */
+    public DoubleVector getDerivatives(int variablesNum) {
+        return DoubleVector.wrap(Arrays.copyOf(derivatives, variablesNum));
+    }
+
+    @Override
+    public double doubleValue() {
+        return value;
+    }
+
+    @Override
+    public long longValue() {
+        return (long) value;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    @Override
+    public Dual plus(Dual that) {
+        double[] res = new double[Math.max(derivatives.length, that.derivatives.length)];
+        for (int i = 0; i < res.length; i++)
+            res[i] = getDerivative(i) + that.getDerivative(i);
+        return new Dual(value + that.value, res);
+    }
+
+    @Override
+    public Dual minus(Dual that) {
+        double[] res = new double[Math.max(derivatives.length, that.derivatives.length)];
+        for (int i = 0; i < res.length; i++)
+            res[i] = getDerivative(i) - that.getDerivative(i);
+        return new Dual(value - that.value, res);
+    }
+
+    @Override
+    public Dual times(Dual that) {
+        double[] res = new double[Math.max(derivatives.length, that.derivatives.length)];
+        for (int i = 0; i < res.length; i++)
+            res[i] = getDerivative(i) * that.value + value * that.getDerivative(i);
+        return new Dual(value * that.value, res);
+    }
+
+    public Dual divide(Dual that) {
+        return times(that.inverse());
+    }
+
+    @Override
+    public Dual opposite() {
+        return chain(-value, -1);
+    }
+
+    @Override
+    public Dual inverse() {
+        return chain(1 / value, -1 / (value * value));
+    }
+
+    public Dual plus(double d) {
+        return new Dual(value + d, derivatives);
+    }
+
+    public Dual minus(double d) {
+        return new Dual(value - d, derivatives);
+    }
+
+    public Dual times(double d) {
+        return chain(value * d, d);
+    }
+
+    public Dual divide(double d) {
+        return chain(value / d, 1 / d);
+    }
+
+    public Dual pow(double exp) {
+        return chain(Math.pow(value, exp), exp * Math.pow(value, exp - 1));
+    }
+
+    public Dual sqrt() {
+        double sqrt = Math.sqrt(value);
+        return chain(sqrt, 0.5 / sqrt);
+    }
+
+    public Dual exp() {
+        double exp = Math.exp(value);
+        return chain(exp, exp);
+    }
+
+    public Dual log() {
+        return chain(Math.log(value), 1 / value);
+    }
+
+    public Dual sin() {
+        return chain(Math.sin(value), Math.cos(value));
+    }
+
+    public Dual cos() {
+        return chain(Math.cos(value), -Math.sin(value));
+    }
+
+    /**
+     * Returns absolute value. Derivative in zero is taken as zero (subgradient).
+     * @return absolute value of this number
+     */
+    public Dual abs() {
+        return chain(Math.abs(value), Math.signum(value));
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    @Override
+    public boolean isLargerThan(Dual that) {
+        return Math.abs(value) > Math.abs(that.value);
+    }
+
+    @Override
+    public int compareTo(Dual that) {
+        return Double.compare(value, that.value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Dual)) return false;
+        Dual that = (Dual) o;
+        if (Double.compare(value, that.value) != 0) return false;
+        for (int i = 0; i < Math.max(derivatives.length, that.derivatives.length); i++)
+            if (Double.compare(getDerivative(i), that.getDerivative(i)) != 0) return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.valueOf(value).hashCode();
+    }
+
+    @Override
+    public Text toText() {
+        return Text.valueOf("Value: " + value + " Derivatives: " + Arrays.toString(derivatives));
+    }
+
+    @Override
+    public Dual copy() {
+        return new Dual(value, derivatives);
+    }
+
+    // applies chain rule for the elementary function with the given value and derivative in this point
+    private Dual chain(double newValue, double derivative) {
+        if (derivatives.length == 0) return new Dual(newValue, NO_DERIVATIVES);
+        double[] res = new double[derivatives.length];
+        for (int i = 0; i < res.length; i++)
+            res[i] = derivatives[i] * derivative;
+        return new Dual(newValue, res);
+    }
+}
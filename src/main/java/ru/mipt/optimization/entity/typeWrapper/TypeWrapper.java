@@ -4,46 +4,73 @@ import org.jscience.mathematics.number.Real;
 import org.jscience.mathematics.vector.DenseVector;
 import org.jscience.mathematics.vector.Vector;
 import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleKeyCache;
+import ru.mipt.optimization.supportive.DoubleVector;
+import ru.mipt.optimization.supportive.SegmentedCache;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 /**
  * Represents the wrapper to go over external data types.
  * Converts type {@link T} to its {@link org.jscience.mathematics.number.Real} interpretation and vice versa.
  * Uses the conversion rules given in constructor.
+ * Conversions are cached in bounded caches shared by parallel optimization procedures, the earliest conversions
+ * are evicted when the capacity is exceeded. Number interpretations are cached by primitive double keys.
+ * If toTypeRule returns null for the number, the nearest to it multiple of the default domain accuracy
+ * which toTypeRule converts is taken, within the default max recursion number of the nearest multiples.
+ * So the conversion depends only on the number and not on the numbers converted before.
+ * Multiples known to be converted by toTypeRule are kept in the index, so the rule isn't called for them again
+ * and the probes end at the nearest of them.
  * Created by Inna on 17.09.2017.
  */
 public class TypeWrapper<T> {
-    Map<T, Real> toRealMap = new HashMap<>();
-    Map<Real, T> toTypeMap = new HashMap<>();
+    public static final int DEFAULT_CACHE_CAPACITY = 1 << 16;
 
-    final Function<T, Real> toRealRule;
-    final Function<Real, T> toTypeRule;
+    final DoubleKeyCache<T> toTypeCache; // type interpretations of the numbers
+    final SegmentedCache<T, Double> toNumberCache; // number interpretations of the type values
+    final ConcurrentSkipListMap<Long, T> representable = new ConcurrentSkipListMap<>(); // converted accuracy multiples
+    private final AtomicInteger representableNum = new AtomicInteger(); // size of the index, counted not to traverse it
+    private final int cacheCapacity;
+
+    final Function<T, Double> toRealRule;
+    final Function<Double, T> toTypeRule;
     final Class<T> tClass;// awful thing to get round type erasure
 
+    /**
+     * Creates TypeWrapper with the given conversion rules and the caches of the
+     * {@link TypeWrapper#DEFAULT_CACHE_CAPACITY default} capacity
+     * @throws IllegalArgumentException if some arguments are null
+     */
     public TypeWrapper(final Function<T, Double> toRealRule, final Function<Double, T> toTypeRule, Class<T> tClass) {
+        this(toRealRule, toTypeRule, tClass, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates TypeWrapper with the given conversion rules
+     * @param toRealRule - rule to convert {@link T} to its number interpretation
+     * @param toTypeRule - rule to convert number interpretation back to {@link T}
+     * @param tClass - Class of the type {@link T}
+     * @param cacheCapacity - maximum number of the cached conversions in every direction
+     *                      and of the indexed representable numbers. Must be positive.
+     * @throws IllegalArgumentException if some arguments are null or cacheCapacity isn't positive
+     */
+    public TypeWrapper(Function<T, Double> toRealRule, Function<Double, T> toTypeRule, Class<T> tClass,
+                       int cacheCapacity) {
         if (toRealRule == null || toTypeRule == null || tClass == null)
             throw new IllegalArgumentException("Arguments in TypeWrapper constructor can't be null");
 
-        this.toRealRule = new Function<T, Real>() {
-            @Override
-            public Real apply(T t) {
-                return Real.valueOf(toRealRule.apply(t));
-            }
-        };
-        this.toTypeRule = new Function<Real, T>() {
-            @Override
-            public T apply(Real real) {
-                return toTypeRule.apply(real.doubleValue());
-            }
-        };
-
+        this.toRealRule = toRealRule;
+        this.toTypeRule = toTypeRule;
         this.tClass = tClass;
+        this.cacheCapacity = cacheCapacity;
+        this.toTypeCache = new DoubleKeyCache<>(cacheCapacity);
+        this.toNumberCache = new SegmentedCache<>(cacheCapacity);
     }
 
     /**
@@ -55,8 +82,18 @@ public class TypeWrapper<T> {
      * @throws RuntimeException if convertation rule returns null, i.e. doesn't cover all Real numbers
      */
     public T convert(Real r) {
-        T typeInterpretation = toTypeMap.get(r);
-        if (typeInterpretation == null) typeInterpretation = calculateTypeInterpretation(r);
+        return convert(r.doubleValue());
+    }
+
+    /**
+     * Converts number interpretation back to type {@link T}, see {@link TypeWrapper#convert(Real)}
+     * @param number - argument to convert
+     * @return value of argument converted back to type {@link T}
+     * @throws RuntimeException if convertation rule returns null, i.e. doesn't cover all Real numbers
+     */
+    public T convert(double number) {
+        T typeInterpretation = toTypeCache.get(number);
+        if (typeInterpretation == null) typeInterpretation = calculateTypeInterpretation(number);
 
         if (typeInterpretation == null) throw new RuntimeException("Invalid toTypeRule in TypeWrapper: " +
                 "this rule can't return null, it must convert all Real numbers");
@@ -74,22 +111,24 @@ public class TypeWrapper<T> {
      * Note: can return null if given convertationRule provides such behavior.
      */
     public Real convert(T t) {
-        Real realInterpretation = toRealMap.get(t);
-        if (realInterpretation == null) {
-            realInterpretation = toRealRule.apply(t);
-            if (realInterpretation != null) {
-                toRealMap.put(t, realInterpretation);
-                toTypeMap.put(realInterpretation, t);
-            }
-        }
-        return realInterpretation;
+        Double number = toNumber(t);
+        return (number == null) ? null : Real.valueOf(number);
     }
 
+    /**
+     * Removes all cached conversions
+     */
+    public void clearCaches() {
+        toTypeCache.clear();
+        toNumberCache.clear();
+        representable.clear();
+        representableNum.set(0);
+    }
 
     public T[] convertPoint(Vector<Real> realPoint) {
         if (realPoint == null) throw new IllegalArgumentException("Can't convert null point!");
 
-        T[] a = (T[]) Array.newInstance(tClass, realPoint.getDimension());
+        T[] a = newPoint(realPoint.getDimension());
         for (int i = 0; i < realPoint.getDimension(); i++ ) a[i] = convert(realPoint.get(i));
         return a;
     }
@@ -101,22 +140,77 @@ public class TypeWrapper<T> {
         return DenseVector.valueOf(l);
     }
 
+    public T[] convertPoint(DoubleVector point) {
+        if (point == null) throw new IllegalArgumentException("Can't convert null point!");
+
+        T[] a = newPoint(point.getDimension());
+        for (int i = 0; i < point.getDimension(); i++ ) a[i] = convert(point.get(i));
+        return a;
+    }
+
+    public DoubleVector convertToDoubleVector(T[] tPoint) {
+        if (tPoint == null) throw new IllegalArgumentException("Can't convert null point!");
+        double[] elements = new double[tPoint.length];
+        for (int i = 0; i < tPoint.length; i++) elements[i] = toNumber(tPoint[i]);
+        return DoubleVector.wrap(elements);
+    }
+
+
+    // creates empty point of type T of the given dimension
+    @SuppressWarnings("unchecked")
+    private T[] newPoint(int dimension) {
+        return (T[]) Array.newInstance(tClass, dimension);
+    }
 
-    // Calculates type interpretation of the given Real number with the help of toTypeRule.
-    // Looking its notnull value in case of null answer from toTypeRule
-    // (within DefaultSearchRange by DefaultDomainAccuracy step until DefaultSearchRange is over)
-    private T calculateTypeInterpretation(Real r) {
-        T typeInterpretation = null;
-        int i = 0;
-        while (typeInterpretation == null
-                && i < Config.getDefaultMaxRecursionNum() ) {
-           typeInterpretation = toTypeRule.apply(r.plus(Real.valueOf(Config.getDefaultDomainAccuracy()*i)));
-            i = (i==0)? 1: (i + Integer.signum(i)) *(-1);
+    // returns number interpretation of t, null if toRealRule returns null
+    private Double toNumber(T t) {
+        Double number = toNumberCache.get(t);
+        if (number == null) {
+            number = toRealRule.apply(t);
+            if (number != null) {
+                toNumberCache.put(t, number);
+                toTypeCache.put(number, t);
+            }
+        }
+        return number;
+    }
+
+    // Calculates type interpretation of the given number with the help of toTypeRule.
+    // Looking its notnull value in case of null answer from toTypeRule in the multiples of DefaultDomainAccuracy
+    // ordered by their distance to the number, greater one first if they're equally distant,
+    // until DefaultMaxRecursionNum of them are probed. Indexed multiples are taken without calling the rule
+    private T calculateTypeInterpretation(double number) {
+        T typeInterpretation = toTypeRule.apply(number);
+
+        double accuracy = Config.getDefaultDomainAccuracy();
+        long below = (long) Math.floor(number / accuracy), above = below + 1;
+        for (int probes = 0; typeInterpretation == null && probes < Config.getDefaultMaxRecursionNum(); probes++) {
+            long multiple;
+            if (above * accuracy - number <= number - below * accuracy) multiple = above++;
+            else multiple = below--;
+            typeInterpretation = representable.get(multiple);
+            if (typeInterpretation == null) {
+                typeInterpretation = toTypeRule.apply(multiple * accuracy);
+                if (typeInterpretation != null) addRepresentable(multiple, typeInterpretation);
+            }
         }
+
         if (typeInterpretation != null) {
-            toTypeMap.put(r,typeInterpretation);
-            toRealMap.put(typeInterpretation,r);
+            toTypeCache.put(number, typeInterpretation);
+            toNumberCache.put(typeInterpretation, number);
         }
         return typeInterpretation;
     }
+
+    // indexes the multiple converted by toTypeRule, evicting the extreme multiple farther from it if capacity is exceeded
+    private void addRepresentable(long multiple, T typeInterpretation) {
+        if (representable.putIfAbsent(multiple, typeInterpretation) != null) return;
+        if (representableNum.incrementAndGet() <= cacheCapacity) return;
+
+        Map.Entry<Long, T> first = representable.firstEntry();
+        Map.Entry<Long, T> last = representable.lastEntry();
+        if (first == null || last == null) return;
+        Long evicted = (multiple - first.getKey() > last.getKey() - multiple) ? first.getKey() : last.getKey();
+        if (representable.remove(evicted) != null) representableNum.decrementAndGet();
+    }
 }
@@ -0,0 +1,186 @@
+package ru.mipt.optimization.supportive;
+
+/**
+ * Represents bounded cache keyed by primitive double values, so that lookups don't box the keys.
+ * Keys are spread over independently locked segments, each is the open-addressing table
+ * evicting the earliest cached key when its capacity is exceeded. Capacities of the segments sum up to the capacity
+ * of the cache, so the earliest key of the cache isn't necessarily the evicted one.
+ * Is safe to share between concurrently running optimization procedures.
+ * Note: keys are compared by their bits, so 0.0 and -0.0 are different keys and NaN is the same key.
+ * @param <V> type of the cached values
+ */
+public class DoubleKeyCache<V> {
+
+    private static final int MAX_SEGMENTS_NUM = 16;
+
+    private final Segment[] segments;
+    private final int capacity;
+
+    /**
+     * Creates empty cache of the given capacity
+     * @param capacity - maximum number of the cached keys. Must be positive.
+     * @throws IllegalArgumentException if capacity isn't positive
+     */
+    public DoubleKeyCache(int capacity) {
+        this(capacity, MAX_SEGMENTS_NUM);
+    }
+
+    // creates empty cache of the given capacity spread over at most the given number of the segments
+    DoubleKeyCache(int capacity, int maxSegmentsNum) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity of the cache must be positive!");
+        this.capacity = capacity;
+
+        int segmentsNum = Math.min(maxSegmentsNum, capacity);
+        segments = new Segment[segmentsNum];
+        for (int i = 0; i < segmentsNum; i++) // remainder of the capacity goes to the first segments
+            segments[i] = new Segment(capacity / segmentsNum + ((i < capacity % segmentsNum) ? 1 : 0));
+    }
+
+    /**
+     * Returns cached value of the key
+     * @param key - key to look up
+     * @return cached value or null if the key isn't cached
+     */
+    @SuppressWarnings("unchecked")
+    public V get(double key) {
+        long bits = Double.doubleToLongBits(key);
+        Segment segment = segmentFor(bits);
+        synchronized (segment) {
+            return (V) segment.get(bits);
+        }
+    }
+
+    /**
+     * Caches value of the key, evicting the earliest cached key of its segment if the capacity is exceeded
+     * @param key - key to cache value of
+     * @param value - value of the key. If null nothing is cached.
+     */
+    public void put(double key, V value) {
+        if (value == null) return;
+        long bits = Double.doubleToLongBits(key);
+        Segment segment = segmentFor(bits);
+        synchronized (segment) {
+            segment.put(bits, value);
+        }
+    }
+
+    /**
+     * Removes all cached values
+     */
+    public void clear() {
+        for (Segment segment: segments)
+            synchronized (segment) {
+                segment.clear();
+            }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public int size() {
+        int size = 0;
+        for (Segment segment: segments)
+            synchronized (segment) {
+                size += segment.size;
+            }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleKeyCache: capacity = " + capacity + "; size = " + size();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    static int hash(long bits) {
+        bits *= 0x9E3779B97F4A7C15L;
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    private Segment segmentFor(long bits) {
+        return segments[(hash(bits) >>> 16) % segments.length];
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    // open-addressing table with linear probing, keys in order of caching are kept in the ring to evict the earliest
+    private static class Segment {
+        private final int capacity;
+        private final int mask;
+        private final long[] keys;
+        private final Object[] values; // null for the free slots
+        private final long[] order; // ring of the cached keys, earliest at the head
+        private int head = 0;
+        private int size = 0;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1; // at most half full
+            this.mask = tableSize - 1;
+            this.keys = new long[tableSize];
+            this.values = new Object[tableSize];
+            this.order = new long[capacity];
+        }
+
+        Object get(long key) {
+            int slot = find(key);
+            return (slot < 0) ? null : values[slot];
+        }
+
+        void put(long key, Object value) {
+            int slot = find(key);
+            if (slot >= 0) {
+                values[slot] = value;
+                return;
+            }
+            if (size == capacity) {
+                remove(order[head]);
+                head = (head + 1) % capacity;
+                size--;
+            }
+            slot = hash(key) & mask;
+            while (values[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = value;
+            order[(head + size) % capacity] = key;
+            size++;
+        }
+
+        void clear() {
+            for (int i = 0; i < values.length; i++) values[i] = null;
+            head = 0;
+            size = 0;
+        }
+
+        // returns slot of the key or -1 if it isn't cached
+        private int find(long key) {
+            int slot = hash(key) & mask;
+            while (values[slot] != null) {
+                if (keys[slot] == key) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        // removes the key shifting back the following keys of its probe sequence
+        private void remove(long key) {
+            int free = find(key);
+            if (free < 0) return;
+            values[free] = null;
+            for (int slot = (free + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                int home = hash(keys[slot]) & mask;
+                boolean reachable = (free <= slot) ? (home <= free || home > slot) : (home <= free && home > slot);
+                if (reachable) { // the key can be moved to the free slot without breaking its probe sequence
+                    keys[free] = keys[slot];
+                    values[free] = values[slot];
+                    values[slot] = null;
+                    free = slot;
+                }
+            }
+        }
+    }
+}
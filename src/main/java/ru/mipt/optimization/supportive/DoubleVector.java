@@ -0,0 +1,199 @@
+package ru.mipt.optimization.supportive;
+
+import org.jscience.mathematics.number.Real;
+import org.jscience.mathematics.vector.DenseVector;
+import org.jscience.mathematics.vector.Vector;
+
+import java.util.Arrays;
+
+/**
+ * Immutable vector of real numbers backed by the primitive double array.
+ * Is used inside algorithms, cost functions and stop criteria instead of
+ * {@link org.jscience.mathematics.vector.Vector} of {@link org.jscience.mathematics.number.Real}
+ * to avoid boxing of every coordinate on every iteration.
+ * Conversion to and from jscience vectors is performed only on the API edge
+ * (see {@link DoubleVector#valueOf(Vector)} and {@link DoubleVector#toRealVector()}).
+ */
+public final class DoubleVector {
+
+    private final double[] elements;
+    private int hash; // cached hash code, vectors are used as the keys of the caches
+
+    // takes ownership of the given array, must not be shared
+    private DoubleVector(double[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Returns vector with the copy of the given elements
+     * @param elements - elements of the vector
+     * @return vector with the given elements
+     */
+    public static DoubleVector valueOf(double... elements) {
+        if (elements == null) throw new IllegalArgumentException("Elements of the vector can't be null!");
+        return new DoubleVector(elements.clone());
+    }
+
+    /**
+     * Returns vector with the same elements as the given jscience vector
+     * @param vector - vector to convert
+     * @return vector with the same elements as the given one
+     */
+    public static DoubleVector valueOf(Vector<Real> vector) {
+        if (vector == null) throw new IllegalArgumentException("Can't convert null vector!");
+        double[] elements = new double[vector.getDimension()];
+        for (int i = 0; i < elements.length; i++)
+            elements[i] = vector.get(i).doubleValue();
+        return new DoubleVector(elements);
+    }
+
+    /**
+     * Returns vector that owns the given array without copying it.
+     * Note: given array must not be changed afterwards.
+     * @param elements - elements of the vector
+     * @return vector backed by the given array
+     */
+    public static DoubleVector wrap(double[] elements) {
+        if (elements == null) throw new IllegalArgumentException("Elements of the vector can't be null!");
+        return new DoubleVector(elements);
+    }
+
+    /**
+     * Returns vector with all identical elements value of d parameter
+     * @param dim - dimension of required vector
+     * @param d - value to set to all the elements of the vector
+     * @return vector with all identical elements value of d parameter
+     */
+    public static DoubleVector twin(int dim, double d) {
+        double[] elements = new double[dim];
+        if (d != 0) Arrays.fill(elements, d);
+        return new DoubleVector(elements);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public int getDimension() {
+        return elements.length;
+    }
+
+    public double get(int i) {
+        return elements[i];
+    }
+
+    /**
+     * Returns copy of the elements of this vector
+     * @return copy of the elements of this vector
+     */
+    public double[] toArray() {
+        return elements.clone();
+    }
+
+    /**
+     * Returns jscience vector with the same elements as this one
+     * @return jscience vector with the same elements as this one
+     */
+    public Vector<Real> toRealVector() {
+        Real[] reals = new Real[elements.length];
+        for (int i = 0; i < reals.length; i++)
+            reals[i] = Real.valueOf(elements[i]);
+        return DenseVector.valueOf(reals);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public DoubleVector plus(DoubleVector that) {
+        checkDimension(that);
+        double[] res = new double[elements.length];
+        for (int i = 0; i < res.length; i++)
+            res[i] = elements[i] + that.elements[i];
+        return new DoubleVector(res);
+    }
+
+    public DoubleVector minus(DoubleVector that) {
+        checkDimension(that);
+        double[] res = new double[elements.length];
+        for (int i = 0; i < res.length; i++)
+            res[i] = elements[i] - that.elements[i];
+        return new DoubleVector(res);
+    }
+
+    public DoubleVector times(double k) {
+        double[] res = new double[elements.length];
+        for (int i = 0; i < res.length; i++)
+            res[i] = elements[i] * k;
+        return new DoubleVector(res);
+    }
+
+    /**
+     * Returns dot product of this vector and the given one
+     * @param that - vector to multiply by
+     * @return dot product of this vector and the given one
+     */
+    public double times(DoubleVector that) {
+        checkDimension(that);
+        double res = 0;
+        for (int i = 0; i < elements.length; i++)
+            res += elements[i] * that.elements[i];
+        return res;
+    }
+
+    /**
+     * Returns copy of this vector with delta added to the element in the given dimension
+     * @param dim - dimension to change
+     * @param delta - value to add
+     * @return copy of this vector with delta added to the element in the given dimension
+     */
+    public DoubleVector plus(int dim, double delta) {
+        double[] res = elements.clone();
+        res[dim] += delta;
+        return new DoubleVector(res);
+    }
+
+    /**
+     * Returns copy of this vector with delta added to all the elements
+     * @param delta - value to add
+     * @return copy of this vector with delta added to all the elements
+     */
+    public DoubleVector plus(double delta) {
+        double[] res = new double[elements.length];
+        for (int i = 0; i < res.length; i++)
+            res[i] = elements[i] + delta;
+        return new DoubleVector(res);
+    }
+
+    public double norm() {
+        double res = 0;
+        for (double d : elements)
+            res += d * d;
+        return Math.sqrt(res);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DoubleVector)) return false;
+        return Arrays.equals(elements, ((DoubleVector) o).elements);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Arrays.hashCode(elements);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+
+    private void checkDimension(DoubleVector that) {
+        if (that == null || that.elements.length != elements.length)
+            throw new IllegalArgumentException("Given vectors have different dimensions or are null.");
+    }
+}
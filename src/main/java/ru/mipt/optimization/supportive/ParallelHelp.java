@@ -0,0 +1,110 @@
+package ru.mipt.optimization.supportive;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper class for running independent evaluations on the executor
+ */
+public class ParallelHelp {
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory(); // null if unusable
+
+    /**
+     * Returns new executor for the I/O-bound evaluations of the cost function, e.g. calling the remote simulator.
+     * Starts every task in its own virtual thread where JDK allows it (Java 21+),
+     * so thousands of blocked evaluations don't need thousands of platform threads.
+     * Otherwise falls back to the unbounded pool of cached daemon platform threads.
+     * Executor is unbounded, so it's safe to share between the starts and the evaluations in them.
+     * @return new unbounded executor for the evaluations. Should be shut down after use.
+     */
+    public static ExecutorService newEvaluationExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null)
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // virtual threads are disabled (e.g. preview in Java 19-20), platform threads are used
+            }
+
+        final AtomicInteger threadsNum = new AtomicInteger();
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "evaluation-" + threadsNum.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns true if {@link ParallelHelp#newEvaluationExecutor()} runs evaluations in virtual threads
+     * @return true if virtual threads are available in this JVM
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Runs all the given tasks on the given executor and returns their results in the order of the tasks.
+     * Failure of any task is rethrown in the calling thread.
+     * @param executor - executor to run tasks on
+     * @param tasks - tasks to run
+     * @param <V> - type of the result of the task
+     * @return results of the given tasks in the order of the tasks
+     * @throws RuntimeException if some task has failed or waiting for the tasks has been interrupted
+     */
+    public static <V> List<V> invokeAll(ExecutorService executor, List<? extends Callable<V>> tasks) {
+        List<Future<V>> futures = new ArrayList<>(tasks.size());
+        for (Callable<V> task: tasks) futures.add(executor.submit(task));
+
+        List<V> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<V> future: futures) results.add(await(future));
+        } finally {
+            for (Future<V> future: futures) future.cancel(true);
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the given future and returns its result.
+     * Failure of the task is rethrown in the calling thread.
+     * @param future - future to wait for
+     * @param <V> - type of the result
+     * @return result of the given future
+     * @throws RuntimeException if the task has failed or waiting for it has been interrupted
+     */
+    public static <V> V await(Future<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Waiting for the evaluation has been interrupted", ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) throw (RuntimeException) ee.getCause();
+            if (ee.getCause() instanceof Error) throw (Error) ee.getCause();
+            throw new RuntimeException("Evaluation has failed: " + ee.getCause().getMessage(), ee.getCause());
+        }
+    }
+
+    // returns Executors.newVirtualThreadPerTaskExecutor if it exists in this JVM and virtual threads are enabled,
+    // null otherwise. Is called once, so availability isn't checked again by creating the executors
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ((ExecutorService) factory.invoke(null)).shutdown(); // throws if they are preview and disabled
+            return factory;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
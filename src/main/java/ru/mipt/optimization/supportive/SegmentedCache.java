@@ -0,0 +1,122 @@
+package ru.mipt.optimization.supportive;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents bounded cache keyed by objects, the counterpart of the {@link DoubleKeyCache} for non-primitive keys.
+ * Keys are spread over independently locked segments by their hash codes, each evicting the earliest cached key
+ * when its capacity is exceeded. Capacities of the segments sum up to the capacity of the cache,
+ * so the earliest key of the cache isn't necessarily the evicted one.
+ * Is safe to share between concurrently running optimization procedures.
+ * @param <K> type of the keys, must have consistent equals and hashCode
+ * @param <V> type of the cached values
+ */
+public class SegmentedCache<K, V> {
+
+    private static final int MAX_SEGMENTS_NUM = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int capacity;
+
+    /**
+     * Creates empty cache of the given capacity
+     * @param capacity - maximum number of the cached keys. Must be positive.
+     * @throws IllegalArgumentException if capacity isn't positive
+     */
+    public SegmentedCache(int capacity) {
+        this(capacity, MAX_SEGMENTS_NUM);
+    }
+
+    // creates empty cache of the given capacity spread over at most the given number of the segments
+    @SuppressWarnings("unchecked")
+    SegmentedCache(int capacity, int maxSegmentsNum) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity of the cache must be positive!");
+        this.capacity = capacity;
+
+        int segmentsNum = Math.min(maxSegmentsNum, capacity);
+        segments = new Segment[segmentsNum];
+        for (int i = 0; i < segmentsNum; i++) // remainder of the capacity goes to the first segments
+            segments[i] = new Segment<>(capacity / segmentsNum + ((i < capacity % segmentsNum) ? 1 : 0));
+    }
+
+    /**
+     * Returns cached value of the key
+     * @param key - key to look up
+     * @return cached value or null if the key isn't cached
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * Caches value of the key, evicting the earliest cached key of its segment if the capacity is exceeded
+     * @param key - key to cache value of
+     * @param value - value of the key. If null nothing is cached.
+     */
+    public void put(K key, V value) {
+        if (value == null) return;
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * Removes all cached values
+     */
+    public void clear() {
+        for (Segment<K, V> segment: segments)
+            synchronized (segment) {
+                segment.clear();
+            }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment: segments)
+            synchronized (segment) {
+                size += segment.size();
+            }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentedCache: capacity = " + capacity + "; size = " + size();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = (key == null) ? 0 : key.hashCode();
+        h ^= (h >>> 16);
+        return segments[(h & Integer.MAX_VALUE) % segments.length];
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.mipt.optimization.entity.inOut;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.Optimizator;
+import ru.mipt.optimization.entity.optimizationProcedure.OptimizationHandle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Checks that {@link Optimizator#optimizeAsync(Config, List, Executor)} doesn't evaluate the cost function
+ * on the calling thread, merges results of all the starts and fails with the bad start
+ */
+public class AsyncOptimizationTest extends TestCase {
+
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    // (x0 - 1)^2 + (x1 + 2)^2, defined only for x0 > -5
+    private final Function<Double[], Double> paraboloid = new Function<Double[], Double>() {
+        @Override
+        public Double apply(Double[] x) {
+            evaluations.incrementAndGet();
+            if (x[0] <= -5) return null;
+            return (x[0] - 1) * (x[0] - 1) + (x[1] + 2) * (x[1] + 2);
+        }
+    };
+
+    private Optimizator<Double> optimizator() {
+        return new Optimizator<>(2, Function.<Double>identity(), Function.<Double>identity(), Double.class, paraboloid);
+    }
+
+    public void testCallingThreadDoesNotEvaluateFunction() {
+        DeferredExecutor executor = new DeferredExecutor();
+        AsyncOptimization<Double> optimization = optimizator().optimizeAsync(new Config(),
+                Arrays.asList(new Double[] {3., 3.}, new Double[] {-3., 0.}), executor);
+
+        assertEquals(0, evaluations.get());
+        assertFalse(optimization.getResult().isDone());
+        executor.runAll();
+
+        Result<Double> result = optimization.getResult().join();
+        assertEquals(2, result.getSortedResults(true, false).size());
+        double least = Double.POSITIVE_INFINITY;
+        for (OptimizationHandle start: optimization.getStarts()) {
+            assertEquals(OptimizationHandle.Status.COMPLETED, start.getStatus());
+            least = Math.min(least, start.getProcedure().getOptimizedDecision().y);
+        }
+        assertEquals(least, result.getOptimizedDecision(true, false).getValue());
+    }
+
+    public void testBadStartFailsOnlyItsFutureAndResult() {
+        DeferredExecutor executor = new DeferredExecutor();
+        List<Double[]> startPoints = new ArrayList<>();
+        startPoints.add(new Double[] {3., 3.});
+        startPoints.add(new Double[] {-6., 0.}); // out of the domain
+        startPoints.add(new Double[] {1.}); // of the wrong dimension
+        AsyncOptimization<Double> optimization = optimizator().optimizeAsync(new Config(), startPoints, executor);
+        executor.runAll();
+
+        List<OptimizationHandle> starts = optimization.getStarts();
+        assertEquals(OptimizationHandle.Status.COMPLETED, starts.get(0).getStatus());
+        for (int i = 1; i < 3; i++) {
+            assertEquals(OptimizationHandle.Status.FAILED, starts.get(i).getStatus());
+            try {
+                starts.get(i).getFuture().join();
+                fail("Bad start must fail its future");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+        }
+        assertTrue(optimization.getResult().isCompletedExceptionally());
+    }
+
+    public void testResultIsKeptInHistoryUnderDefaultConfig() {
+        Optimizator<Double> optimizator = optimizator();
+        DeferredExecutor executor = new DeferredExecutor();
+        AsyncOptimization<Double> optimization = optimizator.optimizeAsync(null,
+                Arrays.<Double[]>asList(new Double[] {3., 3.}), executor);
+        executor.runAll();
+
+        Result<Double> result = optimization.getResult().join();
+        Map<Config, Result<Double>> history = optimizator.getHistory().getResultHistory();
+        assertEquals(1, history.size());
+        Map.Entry<Config, Result<Double>> entry = history.entrySet().iterator().next();
+        assertNotNull(entry.getKey());
+        assertSame(result, entry.getValue());
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    // executor running the submitted tasks only when asked, so nothing runs on the calling thread before
+    private static class DeferredExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            for (Runnable task: tasks) task.run();
+            tasks.clear();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.mipt.optimization.entity.inOut;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.Optimizator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Checks that {@link Optimizator#optimize(Config, List, ExecutorService)} merges results of all the starts
+ * the same way as the sequential optimization does
+ */
+public class ParallelMultiStartTest extends TestCase {
+
+    private static final int STARTS_NUM = 8;
+
+    private static final Function<Double[], Double> PARABOLOID = new Function<Double[], Double>() {
+        @Override
+        public Double apply(Double[] x) {
+            return (x[0] - 1) * (x[0] - 1) + (x[1] + 2) * (x[1] + 2);
+        }
+    };
+
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @Override
+    protected void tearDown() {
+        executor.shutdown();
+    }
+
+    private static Optimizator<Double> optimizator() {
+        return new Optimizator<>(2, Function.<Double>identity(), Function.<Double>identity(), Double.class, PARABOLOID);
+    }
+
+    private static Config config() {
+        Config config = new Config();
+        config.setAlgorithmParams(0.1);
+        config.setMaxIterationsNumber(20);
+        return config;
+    }
+
+    private static List<Double[]> startPoints() {
+        List<Double[]> res = new ArrayList<>();
+        for (int k = 0; k < STARTS_NUM; k++) res.add(new Double[] {3. - k, 2. + 0.5 * k});
+        return res;
+    }
+
+    private static List<Double> finalCosts(Result<Double> result) {
+        List<Double> res = new ArrayList<>();
+        for (Result<Double>.OneShot shot: result.getSortedResults(true, false)) res.add(shot.finalDecision.getValue());
+        return res;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testResultsOfAllStartsAreMerged() {
+        Result<Double> parallel = optimizator().optimize(config(), startPoints(), executor);
+        Result<Double> sequential = optimizator().optimize(config(), startPoints());
+
+        assertEquals(STARTS_NUM, parallel.getSortedResults(true, false).size());
+        assertEquals(finalCosts(sequential), finalCosts(parallel));
+    }
+
+    public void testResultIsKeptByDefaultConfig() {
+        Optimizator<Double> optimizator = optimizator();
+        Result<?> result = optimizator.optimize(null, startPoints(), executor);
+        assertFalse(optimizator.getHistory().getResultHistory().containsKey(null));
+        assertSame(result, optimizator.getHistory().getResultHistory().get(result.getConfigurations()));
+    }
+
+    public void testBadStartPointIsRejected() {
+        List<Double[]> startPoints = startPoints();
+        startPoints.add(new Double[] {1.});
+        try {
+            optimizator().optimize(config(), startPoints, executor);
+            fail("Start point of wrong dimension must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // dimension of the point doesn't match the dimension of the optimizator
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.mipt.optimization.entity.inOut;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.Optimizator;
+import ru.mipt.optimization.entity.optimizationProcedure.TrajectoryFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Checks that the {@link Result} gives the trajectory files of its starts and deletes them
+ */
+public class ResultTrajectoryTest extends TestCase {
+
+    private Path directory;
+
+    private static final Function<Double[], Double> PARABOLOID = new Function<Double[], Double>() {
+        @Override
+        public Double apply(Double[] x) {
+            return (x[0] - 1) * (x[0] - 1) + (x[1] + 2) * (x[1] + 2);
+        }
+    };
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("result-trajectory-test");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        for (Path file: files()) Files.delete(file);
+        Files.delete(directory);
+    }
+
+    private List<Path> files() throws IOException {
+        List<Path> res = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file: stream) res.add(file);
+        }
+        return res;
+    }
+
+    public void testHistoryDeletesFilesOfAllStarts() throws IOException {
+        Config config = new Config();
+        config.setAlgorithmParams(0.1);
+        config.setMaxIterationsNumber(20);
+        config.setTrajectoryDirectory(directory);
+        Optimizator<Double> optimizator = new Optimizator<>(2, Function.<Double>identity(),
+                Function.<Double>identity(), Double.class, PARABOLOID);
+        Result<Double> result = optimizator.optimize(config,
+                Arrays.asList(new Double[] {3., 3.}, new Double[] {-3., 1.}));
+        assertEquals(2, files().size());
+
+        TrajectoryFile best = result.getTrajectoryFile(true, false);
+        try {
+            assertEquals(2, best.getDimension());
+            assertTrue(best.size() > 1);
+        } finally {
+            best.close();
+        }
+
+        optimizator.getHistory().deleteTrajectoryFiles();
+        assertTrue(files().isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package ru.mipt.optimization.entity.inOut;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.algorithms.GradientDescent;
+import ru.mipt.optimization.entity.Optimizator;
+import ru.mipt.optimization.entity.optimizationProcedure.OptimizationHandle;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Checks that every start of the multi-start with the seeded
+ * {@link ru.mipt.optimization.entity.optimizationProcedure.costFunction.GradientEstimation#SPSA}
+ * gets its own reproducible sequence of the perturbations
+ */
+public class SpsaMultiStartTest extends TestCase {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final Function<Double[], Double> PARABOLOID = new Function<Double[], Double>() {
+        @Override
+        public Double apply(Double[] x) {
+            return x[0] * x[0] + 3 * x[1] * x[1];
+        }
+    };
+
+    // trajectories of the starts from the same point
+    private static List<List<DoubleVector>> trajectories(long seed) {
+        Config config = new Config(new GradientDescent());
+        config.setAlgorithmParams(0.05);
+        config.setMaxIterationsNumber(10);
+        config.setSpsaGradientEstimation(1, seed);
+        Optimizator<Double> optimizator = new Optimizator<>(2, Function.<Double>identity(),
+                Function.<Double>identity(), Double.class, PARABOLOID);
+        AsyncOptimization<Double> optimization = optimizator.optimizeAsync(config,
+                Arrays.asList(new Double[] {3., 2.}, new Double[] {3., 2.}, new Double[] {3., 2.}), DIRECT);
+        optimization.getResult().join();
+
+        List<List<DoubleVector>> res = new ArrayList<>();
+        for (OptimizationHandle start: optimization.getStarts())
+            res.add(start.getProcedure().getProcedurePoints());
+        return res;
+    }
+
+    public void testStartsHaveDistinctPerturbations() {
+        List<List<DoubleVector>> trajectories = trajectories(5);
+        assertFalse(trajectories.get(0).equals(trajectories.get(1)));
+        assertFalse(trajectories.get(1).equals(trajectories.get(2)));
+        assertFalse(trajectories.get(0).equals(trajectories.get(2)));
+    }
+
+    public void testStartsAreReproducible() {
+        assertEquals(trajectories(5), trajectories(5));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.UndeterminateCostFunc;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Checks that {@link BufferedIterationListener} delivers events in order by one task at a time,
+ * drops them by its {@link BufferedIterationListener.OverflowPolicy} and counts the dropped ones
+ */
+public class BufferedIterationListenerTest extends TestCase {
+
+    private final List<Integer> delivered = new ArrayList<>();
+    private final List<OptimizationProcedure> completed = new ArrayList<>();
+
+    private final IterationListener slowListener = new IterationListener() {
+        @Override
+        public void onIteration(IterationEvent event) {
+            delivered.add(event.iteration);
+        }
+
+        @Override
+        public void onComplete(OptimizationProcedure procedure) {
+            completed.add(procedure);
+        }
+    };
+
+    private static IterationEvent event(int iteration) {
+        return new IterationEvent(null, iteration, DoubleVector.valueOf(iteration), (double) iteration, 1, 0);
+    }
+
+    public void testDropNewestKeepsBufferedEvents() {
+        DeferredExecutor executor = new DeferredExecutor();
+        BufferedIterationListener listener = new BufferedIterationListener(slowListener, executor, 3,
+                BufferedIterationListener.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 5; i++) listener.onIteration(event(i));
+
+        assertEquals(2, listener.getDroppedCount());
+        assertEquals(3, listener.getPendingCount());
+        executor.runAll();
+        assertEquals(Arrays.asList(0, 1, 2), delivered);
+    }
+
+    public void testDropOldestKeepsNewEvents() {
+        DeferredExecutor executor = new DeferredExecutor();
+        BufferedIterationListener listener = new BufferedIterationListener(slowListener, executor, 3,
+                BufferedIterationListener.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) listener.onIteration(event(i));
+
+        assertEquals(2, listener.getDroppedCount());
+        assertEquals(3, listener.getPendingCount());
+        executor.runAll();
+        assertEquals(Arrays.asList(2, 3, 4), delivered);
+    }
+
+    public void testEventsAreDeliveredInOrderBeforeCompletion() {
+        DeferredExecutor executor = new DeferredExecutor();
+        BufferedIterationListener listener = new BufferedIterationListener(slowListener, executor, 10,
+                BufferedIterationListener.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 4; i++) listener.onIteration(event(i));
+        OptimizationProcedure procedure = new OptimizationProcedure(new UndeterminateCostFunc(
+                new Function<DoubleVector, Double>() {
+                    @Override
+                    public Double apply(DoubleVector x) {
+                        return x.get(0) * x.get(0);
+                    }
+                }, 1, new Config()), new Config());
+        listener.onComplete(procedure);
+
+        assertEquals(1, executor.tasks.size()); // one delivering task at a time
+        executor.runAll();
+        assertEquals(Arrays.asList(0, 1, 2, 3), delivered);
+        assertEquals(Arrays.asList(procedure), completed);
+        assertEquals(0, listener.getDroppedCount());
+        assertEquals(0, listener.getPendingCount());
+
+        listener.onIteration(event(4)); // delivery is scheduled again after the buffer was drained
+        executor.runAll();
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), delivered);
+    }
+
+    public void testWrongArgumentsAreRejected() {
+        DeferredExecutor executor = new DeferredExecutor();
+        try {
+            new BufferedIterationListener(slowListener, executor, 0, BufferedIterationListener.OverflowPolicy.DROP_NEWEST);
+            fail("Capacity must be positive");
+        } catch (IllegalArgumentException expected) {
+            // capacity isn't positive
+        }
+        try {
+            new BufferedIterationListener(slowListener, executor, 1, null);
+            fail("Policy can't be null");
+        } catch (IllegalArgumentException expected) {
+            // policy is null
+        }
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    // keeps tasks until they're run explicitly
+    private static class DeferredExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) tasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.UndeterminateCostFunc;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Checks the status of the asynchronously started {@link OptimizationProcedure}
+ * and completion of the procedure which has failed
+ */
+public class OptimizationHandleTest extends TestCase {
+
+    private static final Function<DoubleVector, Double> SQUARE = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            return x.get(0) * x.get(0);
+        }
+    };
+
+    public void testCancelAfterCompletionKeepsStatus() {
+        Config config = new Config();
+        OptimizationProcedure procedure = new OptimizationProcedure(new UndeterminateCostFunc(SQUARE, 1, config), config);
+        DeferredExecutor executor = new DeferredExecutor();
+        OptimizationHandle handle = procedure.startAsync(DoubleVector.valueOf(3), executor, 0, TimeUnit.SECONDS);
+        executor.runAll();
+
+        assertEquals(OptimizationHandle.Status.COMPLETED, handle.getStatus());
+        handle.cancel();
+        assertEquals(OptimizationHandle.Status.COMPLETED, handle.getStatus());
+    }
+
+    public void testCancelSeenByRunningProcedure() {
+        Config config = new Config();
+        final OptimizationProcedure procedure =
+                new OptimizationProcedure(new UndeterminateCostFunc(SQUARE, 1, config), config);
+        DeferredExecutor executor = new DeferredExecutor();
+        final OptimizationHandle handle = procedure.startAsync(DoubleVector.valueOf(3), executor, 0, TimeUnit.SECONDS);
+        config.addIterationListener(new IterationListener() {
+            @Override
+            public void onIteration(IterationEvent event) {
+                if (event.iteration == 1) handle.cancel();
+            }
+        });
+        executor.runAll();
+
+        assertEquals(OptimizationHandle.Status.CANCELLED, handle.getStatus());
+        assertEquals(2, procedure.getTrajectory().size());
+    }
+
+    public void testFailedProcedureIsCompleted() {
+        final AtomicInteger evaluations = new AtomicInteger();
+        Function<DoubleVector, Double> failing = new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector x) {
+                if (evaluations.incrementAndGet() > 3) throw new IllegalStateException("simulator is down");
+                return SQUARE.apply(x);
+            }
+        };
+        Config config = new Config();
+        final AtomicInteger completions = new AtomicInteger();
+        config.addIterationListener(new IterationListener() {
+            @Override
+            public void onIteration(IterationEvent event) {}
+
+            @Override
+            public void onComplete(OptimizationProcedure procedure) {
+                completions.incrementAndGet();
+            }
+        });
+        OptimizationProcedure procedure = new OptimizationProcedure(new UndeterminateCostFunc(failing, 1, config), config);
+        DeferredExecutor executor = new DeferredExecutor();
+        OptimizationHandle handle = procedure.startAsync(DoubleVector.valueOf(3), executor, 0, TimeUnit.SECONDS);
+        executor.runAll();
+
+        assertEquals(OptimizationHandle.Status.FAILED, handle.getStatus());
+        assertEquals(1, completions.get());
+        assertTrue(procedure.getOptimizationTime() > 0);
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    // executor running the submitted tasks only when asked, so the handle is known before the procedure runs
+    private static class DeferredExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            for (Runnable task: tasks) task.run();
+            tasks.clear();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.algorithms.GradientDescent;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.UndeterminateCostFunc;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Checks that the {@link OptimizationProcedure} iterates without growing the stack,
+ * stops at the configured maximum number of iterations and doesn't evaluate its points again
+ */
+public class OptimizationProcedureTest extends TestCase {
+
+    private static final Function<DoubleVector, Double> SQUARE = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            return x.get(0) * x.get(0);
+        }
+    };
+
+    // gradient descent with the unit step jumps over the minimum of the square forever
+    private static OptimizationProcedure oscillating(Config config) {
+        config.setAlgorithmParams(1);
+        return new OptimizationProcedure(new UndeterminateCostFunc(SQUARE, 1, config), config);
+    }
+
+    public void testIterationCapStopsProcedure() {
+        Config config = new Config(new GradientDescent());
+        config.setMaxIterationsNumber(50);
+        OptimizationProcedure procedure = oscillating(config);
+        procedure.start(DoubleVector.valueOf(3));
+        assertEquals(50, procedure.getProcedurePoints().size());
+    }
+
+    public void testDefaultIterationCap() {
+        OptimizationProcedure procedure = oscillating(new Config(new GradientDescent()));
+        procedure.start(DoubleVector.valueOf(3));
+        assertEquals(Config.getDefaultMaxIterationsNum(), procedure.getProcedurePoints().size());
+    }
+
+    public void testLongRunFitsSmallStack() throws InterruptedException {
+        Config config = new Config(new GradientDescent());
+        config.setMaxIterationsNumber(20000);
+        final OptimizationProcedure procedure = oscillating(config);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    procedure.start(DoubleVector.valueOf(3));
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        }, "small-stack", 256 << 10); // recursion per iteration overflows it
+        thread.start();
+        thread.join();
+
+        assertNull(failure.get());
+        assertEquals(20000, procedure.getProcedurePoints().size());
+    }
+
+    public void testTooSmallIterationCapIsRejected() {
+        try {
+            new Config().setMaxIterationsNumber(1);
+            fail("Cap less than 2 must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // start point and at least one iteration
+        }
+    }
+
+    public void testIterationEvaluatesFunctionOnlyForGradientAndNextPoint() {
+        final Map<DoubleVector, Integer> calls = new HashMap<>();
+        Function<DoubleVector, Double> counted = new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector x) {
+                Integer n = calls.get(x);
+                calls.put(x, (n == null) ? 1 : n + 1);
+                return SQUARE.apply(x);
+            }
+        };
+        Config config = new Config(new GradientDescent());
+        config.setAlgorithmParams(0.25);
+        config.setMaxIterationsNumber(30);
+        OptimizationProcedure procedure = new OptimizationProcedure(new UndeterminateCostFunc(counted, 1, config), config);
+        procedure.start(DoubleVector.valueOf(3));
+
+        int iterations = procedure.getTrajectory().size() - 1;
+        int total = 0;
+        for (int n: calls.values()) total += n;
+        // the start point and the forward difference in it, then the same for the next point of every iteration
+        assertEquals(2 + 2 * iterations, total);
+        for (DoubleVector point: procedure.getProcedurePoints())
+            assertEquals(point.toString(), Integer.valueOf(1), calls.get(point));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Checks writing of the {@link TrajectoryFile}, its size on the disk and reading it back after it's closed
+ */
+public class TrajectoryFileTest extends TestCase {
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("trajectory-test");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        for (Path file: Files.newDirectoryStream(directory)) Files.delete(file);
+        Files.delete(directory);
+    }
+
+    public void testClosedFileIsCutToWrittenPoints() throws IOException {
+        TrajectoryFile file = TrajectoryFile.createIn(directory, 2);
+        file.append(DoubleVector.valueOf(1, 2), 5.);
+        file.append(DoubleVector.valueOf(3, 4), null);
+        file.append(DoubleVector.valueOf(5, 6), 61.);
+        file.close();
+
+        assertEquals(16 + 3 * 8 * 3, Files.size(file.getPath()));
+    }
+
+    public void testReopenedFileReadsWrittenPoints() {
+        TrajectoryFile file = TrajectoryFile.createIn(directory, 2);
+        file.append(DoubleVector.valueOf(1, 2), 5.);
+        file.append(DoubleVector.valueOf(3, 4), null);
+        file.close();
+
+        TrajectoryFile reopened = TrajectoryFile.open(file.getPath());
+        try {
+            assertEquals(2, reopened.size());
+            assertEquals(2, reopened.getDimension());
+            assertEquals(DoubleVector.valueOf(1, 2), reopened.getPoint(0));
+            assertEquals(5., reopened.getCost(0));
+            assertEquals(4., reopened.get(1, 1));
+            assertTrue(Double.isNaN(reopened.getCost(1)));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    public void testFileGrowsOverSeveralMappingSteps() throws IOException {
+        int points = 10000; // 32 bytes each, several times the first mapped step
+        TrajectoryFile file = TrajectoryFile.createIn(directory, 3);
+        for (int i = 0; i < points; i++) file.append(DoubleVector.valueOf(i, -i, 2 * i), (double) i * i);
+        assertEquals(7., file.get(7, 0));
+        file.close();
+        assertEquals(16 + (long) points * 32, Files.size(file.getPath()));
+
+        TrajectoryFile reopened = TrajectoryFile.open(file.getPath());
+        try {
+            assertEquals(points, reopened.size());
+            for (int i = 0; i < points; i++) {
+                assertEquals((double) i * i, reopened.getCost(i));
+                assertEquals(DoubleVector.valueOf(i, -i, 2 * i), reopened.getPoint(i));
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    public void testClosedFileCantBeRead() {
+        TrajectoryFile file = TrajectoryFile.createIn(directory, 1);
+        file.append(DoubleVector.valueOf(1), 1.);
+        file.close();
+        file.close(); // closing twice is allowed
+        try {
+            file.getCost(0);
+            fail("Closed file must not be read");
+        } catch (IllegalStateException expected) {
+            // mapped regions are dropped on close
+        }
+    }
+
+    public void testReadOnlyFileIsNotWritable() {
+        TrajectoryFile file = TrajectoryFile.createIn(directory, 1);
+        file.close();
+        TrajectoryFile reopened = TrajectoryFile.open(file.getPath());
+        try {
+            reopened.append(DoubleVector.valueOf(1), 1.);
+            fail("File opened for reading must not be written");
+        } catch (IllegalStateException expected) {
+            // opened only for reading
+        } finally {
+            reopened.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.mipt.optimization.entity.optimizationProcedure;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Checks which records the {@link Trajectory} keeps under each {@link Trajectory.Retention} policy
+ */
+public class TrajectoryTest extends TestCase {
+
+    private static final int POINTS_NUM = 100;
+    private static final int BEST = 30;
+
+    // adds points with the cost (i - BEST)^2, so the best point is neither the first nor among the recent ones
+    private static Trajectory filled(Trajectory.Retention retention) {
+        Trajectory trajectory = new Trajectory(retention);
+        for (int i = 0; i < POINTS_NUM; i++)
+            trajectory.add(DoubleVector.valueOf(i, -i), (double) (i - BEST) * (i - BEST));
+        return trajectory;
+    }
+
+    private static List<Integer> iterationsOf(Trajectory trajectory) {
+        List<Integer> res = new ArrayList<>();
+        for (Trajectory.Record record: trajectory.getRecords()) {
+            assertEquals(DoubleVector.valueOf(record.iteration, -record.iteration), record.point);
+            res.add(record.iteration);
+        }
+        return res;
+    }
+
+    private static List<Integer> sorted(TreeSet<Integer> iterations) {
+        return new ArrayList<>(iterations);
+    }
+
+    public void testKeepAllKeepsEveryPoint() {
+        Trajectory trajectory = filled(Trajectory.Retention.keepAll());
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < POINTS_NUM; i++) expected.add(i);
+        assertEquals(sorted(expected), iterationsOf(trajectory));
+        assertEquals(POINTS_NUM, trajectory.size());
+    }
+
+    public void testKeepLastKeepsStartBestAndLastPoints() {
+        Trajectory trajectory = filled(Trajectory.Retention.keepLast(15));
+        TreeSet<Integer> expected = new TreeSet<>();
+        expected.add(0);
+        expected.add(BEST);
+        for (int i = POINTS_NUM - 15; i < POINTS_NUM; i++) expected.add(i);
+        assertEquals(sorted(expected), iterationsOf(trajectory));
+
+        assertEquals(POINTS_NUM - 15, trajectory.getRecent(14).iteration);
+        try {
+            trajectory.getRecent(15);
+            fail("Record older than the last ones must not be accessible");
+        } catch (IndexOutOfBoundsException expectedException) {
+            // evicted from the ring buffer
+        }
+    }
+
+    public void testKeepLastKeepsNotLessThanRecentNumber() {
+        Trajectory trajectory = filled(Trajectory.Retention.keepLast(3));
+        assertEquals(POINTS_NUM - Trajectory.RECENT_NUM, trajectory.getRecent(Trajectory.RECENT_NUM - 1).iteration);
+        assertEquals(2 + Trajectory.RECENT_NUM, trajectory.getRecords().size());
+    }
+
+    public void testKeepEveryNthKeepsPeriodicPoints() {
+        Trajectory trajectory = filled(Trajectory.Retention.keepEveryNth(7));
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < POINTS_NUM - Trajectory.RECENT_NUM; i += 7) expected.add(i);
+        expected.add(BEST);
+        for (int i = POINTS_NUM - Trajectory.RECENT_NUM; i < POINTS_NUM; i++) expected.add(i);
+        assertEquals(sorted(expected), iterationsOf(trajectory));
+    }
+
+    public void testPointsOutOfDomainAreNeverBest() {
+        Trajectory trajectory = new Trajectory(Trajectory.Retention.keepLast(1));
+        trajectory.add(DoubleVector.valueOf(0), null);
+        assertNull(trajectory.getBest());
+        trajectory.add(DoubleVector.valueOf(1), 3.);
+        trajectory.add(DoubleVector.valueOf(2), null);
+        assertEquals(1, trajectory.getBest().iteration);
+        assertEquals(0, trajectory.getFirst().iteration);
+        assertEquals(DoubleVector.valueOf(2), trajectory.getLast());
+    }
+
+    public void testClearRemovesAllRecords() {
+        Trajectory trajectory = filled(Trajectory.Retention.keepEveryNth(2));
+        trajectory.clear();
+        assertTrue(trajectory.isEmpty());
+        assertTrue(trajectory.getRecords().isEmpty());
+        assertNull(trajectory.getLast());
+        assertNull(trajectory.getBest());
+    }
+}
@@ -0,0 +1,39 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.function.Function;
+
+/**
+ * Checks that the adaptive step of the {@link UndeterminateCostFunc} follows the curvature of the function
+ * along the trajectory
+ */
+public class AdaptiveStepTest extends TestCase {
+
+    // curvature is 1 at pi/2 and almost 0 at pi
+    private static final Function<DoubleVector, Double> SINE = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            return Math.sin(x.get(0));
+        }
+    };
+
+    public void testStepIsEstimatedAgainAfterPeriod() {
+        Config config = new Config();
+        config.setDifferenceScheme(DifferenceScheme.FORWARD, true);
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(SINE, 1, config);
+        DoubleVector curved = DoubleVector.valueOf(Math.PI / 2), flat = DoubleVector.valueOf(3.14);
+
+        costFunction.getPartialDerivative(curved, 0);
+        double curvedStep = costFunction.getDifferenceSteps().get(0);
+        for (int i = 0; i < 49; i++) costFunction.getPartialDerivative(flat, 0);
+        assertEquals(curvedStep, costFunction.getDifferenceSteps().get(0));
+
+        costFunction.getPartialDerivative(flat, 0);
+        double flatStep = costFunction.getDifferenceSteps().get(0);
+        assertTrue(flatStep + " and " + curvedStep, flatStep > 10 * curvedStep);
+        assertEquals(Math.cos(3.14), costFunction.getPartialDerivative(flat, 0), 1e-6);
+    }
+}
@@ -0,0 +1,99 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Checks that {@link CostFunction#applyAll(List)} sends the points the caches can't answer by one call
+ * of the batch rule, falls back to the point rule without it and rejects batches of the wrong size
+ */
+public class BatchEvaluationTest extends TestCase {
+
+    private final List<DoubleVector> pointCalls = new ArrayList<>();
+    private final List<List<DoubleVector>> batchCalls = new ArrayList<>();
+
+    // x0^2 + x1, defined only for x0 >= 0
+    private final Function<DoubleVector, Double> rule = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            pointCalls.add(x);
+            return (x.get(0) < 0) ? null : x.get(0) * x.get(0) + x.get(1);
+        }
+    };
+
+    private final Function<List<DoubleVector>, List<Double>> batchRule =
+            new Function<List<DoubleVector>, List<Double>>() {
+                @Override
+                public List<Double> apply(List<DoubleVector> points) {
+                    batchCalls.add(new ArrayList<>(points));
+                    List<Double> res = new ArrayList<>(points.size());
+                    for (DoubleVector x: points) res.add((x.get(0) < 0) ? null : x.get(0) * x.get(0) + x.get(1));
+                    return res;
+                }
+            };
+
+    private static final List<DoubleVector> POINTS = Arrays.asList(
+            DoubleVector.valueOf(1, 1), DoubleVector.valueOf(-1, 1), DoubleVector.valueOf(2, 0));
+
+    public void testPointsAreEvaluatedOneByOneWithoutBatchRule() {
+        CostFunction costFunction = new UndeterminateCostFunc(rule, 2, new Config());
+        assertEquals(Arrays.asList(2.0, null, 4.0), costFunction.applyAll(POINTS));
+        assertEquals(POINTS, pointCalls);
+    }
+
+    public void testPointsAreEvaluatedByOneBatch() {
+        CostFunction costFunction = new UndeterminateCostFunc(rule, 2, new Config());
+        costFunction.setBatchRule(batchRule);
+        assertEquals(Arrays.asList(2.0, null, 4.0), costFunction.applyAll(POINTS));
+        assertEquals(1, batchCalls.size());
+        assertEquals(POINTS, batchCalls.get(0));
+        assertTrue(pointCalls.isEmpty());
+    }
+
+    public void testCachedPointsAreNotSentToBatch() {
+        EvaluationCache cache = new EvaluationCache(64, EvaluationCache.EvictionPolicy.LRU);
+        CostFunction costFunction = new UndeterminateCostFunc(rule, 2, new Config());
+        costFunction.setEvaluationCache(cache);
+        costFunction.setBatchRule(batchRule);
+        costFunction.apply(POINTS.get(0));
+
+        assertEquals(Arrays.asList(2.0, null, 4.0), costFunction.applyAll(POINTS));
+        assertEquals(Arrays.asList(POINTS.get(1), POINTS.get(2)), batchCalls.get(0));
+        assertEquals(4.0, cache.getIfPresent(POINTS.get(2))); // values of the batch are cached back
+    }
+
+    public void testBatchOfWrongSizeIsRejected() {
+        CostFunction costFunction = new UndeterminateCostFunc(rule, 2, new Config());
+        costFunction.setBatchRule(new Function<List<DoubleVector>, List<Double>>() {
+            @Override
+            public List<Double> apply(List<DoubleVector> points) {
+                return Arrays.asList(1.0);
+            }
+        });
+        try {
+            costFunction.applyAll(POINTS);
+            fail("Batch of the wrong size must be rejected");
+        } catch (IllegalStateException expected) {
+            // one value for three points
+        }
+    }
+
+    public void testGradientStencilIsEvaluatedByBatch() {
+        Config config = new Config();
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(rule, 2, config);
+        costFunction.setBatchRule(batchRule);
+        DoubleVector gradient = costFunction.getGradient(DoubleVector.valueOf(1, 1));
+
+        assertEquals(1, batchCalls.size());
+        assertTrue(batchCalls.get(0).contains(DoubleVector.valueOf(1, 1).plus(0, config.accuracyOfDomainSearch)));
+        assertTrue(batchCalls.get(0).contains(DoubleVector.valueOf(1, 1).plus(1, config.accuracyOfDomainSearch)));
+        assertEquals(2, gradient.get(0), 2 * config.accuracyOfDomainSearch);
+        assertEquals(1, gradient.get(1), 1e-6);
+    }
+}
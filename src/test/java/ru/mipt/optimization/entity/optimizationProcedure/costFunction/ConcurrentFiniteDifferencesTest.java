@@ -0,0 +1,81 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Checks finite differences of the {@link UndeterminateCostFunc} evaluated concurrently against the sequential ones
+ */
+public class ConcurrentFiniteDifferencesTest extends TestCase {
+
+    private static final double[] WEIGHTS = {1, 2, -1, 0.5};
+
+    // sin(x0) * exp(x1), defined only for x0 <= 1
+    private static final Function<DoubleVector, Double> SIN_EXP = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            return (x.get(0) <= 1) ? Math.sin(x.get(0)) * Math.exp(x.get(1)) : null;
+        }
+    };
+
+    public void testConcurrentGradientMatchesSequentialOne() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (DifferenceScheme scheme: DifferenceScheme.values())
+                for (DoubleVector x: new DoubleVector[] {DoubleVector.valueOf(0.3, 0.2), DoubleVector.valueOf(0.995, 0)}) {
+                    Config config = new Config();
+                    config.setDifferenceScheme(scheme, false);
+                    DoubleVector sequential = new UndeterminateCostFunc(SIN_EXP, 2, config).getGradient(x);
+                    config.setEvaluationExecutor(executor);
+                    DoubleVector concurrent = new UndeterminateCostFunc(SIN_EXP, 2, config).getGradient(x);
+
+                    assertEquals(scheme + " at " + x, sequential, concurrent);
+                }
+            Config config = new Config();
+            config.setEvaluationExecutor(executor);
+            DoubleVector gradient = new UndeterminateCostFunc(SIN_EXP, 2, config).getGradient(DoubleVector.valueOf(0.3, 0.2));
+            assertEquals(Math.cos(0.3) * Math.exp(0.2), gradient.get(0), 1e-2);
+            assertEquals(Math.sin(0.3) * Math.exp(0.2), gradient.get(1), 1e-2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testConcurrentForwardGradientEvaluatesPointOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Config config = new Config();
+            config.setDifferenceScheme(DifferenceScheme.FORWARD, false);
+            config.setEvaluationExecutor(executor);
+            DoubleVector gradient = new UndeterminateCostFunc(linear(calls), WEIGHTS.length, config)
+                    .getGradient(DoubleVector.valueOf(0.3, -0.2, 0.7, 1.1));
+
+            assertEquals(WEIGHTS.length + 1, calls.get());
+            for (int i = 0; i < WEIGHTS.length; i++) assertEquals(WEIGHTS[i], gradient.get(i), 1e-6);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    // sum of WEIGHTS[i] * x_i, counting its calls if calls aren't null
+    private static Function<DoubleVector, Double> linear(final AtomicInteger calls) {
+        return new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector x) {
+                if (calls != null) calls.incrementAndGet();
+                double res = 0;
+                for (int i = 0; i < WEIGHTS.length; i++) res += WEIGHTS[i] * x.get(i);
+                return res;
+            }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.Optimizator;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.entity.inOut.Result;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Checks that {@link DeterminateCostFunc} takes derivatives from the gradient oracle
+ * instead of the finite differences and validates what the oracle gives
+ */
+public class DeterminateCostFuncTest extends TestCase {
+
+    private final AtomicInteger functionCalls = new AtomicInteger();
+    private final AtomicInteger gradientCalls = new AtomicInteger();
+
+    // (x0 - 1)^2 + 3 (x1 + 2)^2
+    private final Function<DoubleVector, Double> paraboloid = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            functionCalls.incrementAndGet();
+            return (x.get(0) - 1) * (x.get(0) - 1) + 3 * (x.get(1) + 2) * (x.get(1) + 2);
+        }
+    };
+
+    private final Function<DoubleVector, DoubleVector> gradient = new Function<DoubleVector, DoubleVector>() {
+        @Override
+        public DoubleVector apply(DoubleVector x) {
+            gradientCalls.incrementAndGet();
+            return DoubleVector.valueOf(2 * (x.get(0) - 1), 6 * (x.get(1) + 2));
+        }
+    };
+
+    public void testGradientIsTakenFromOracle() {
+        DeterminateCostFunc costFunction = new DeterminateCostFunc(paraboloid, gradient, 2, new Config());
+        DoubleVector x = DoubleVector.valueOf(3, -1);
+
+        assertEquals(DoubleVector.valueOf(4, 6), costFunction.getGradient(x));
+        assertEquals(6.0, costFunction.getPartialDerivative(x, 1));
+        assertEquals(0, functionCalls.get());
+        assertEquals(2, gradientCalls.get());
+    }
+
+    public void testWrongGradientIsRejected() {
+        Function<DoubleVector, DoubleVector> wrong = new Function<DoubleVector, DoubleVector>() {
+            @Override
+            public DoubleVector apply(DoubleVector x) {
+                return (x.get(0) < 0) ? null : DoubleVector.valueOf(1, 2, 3);
+            }
+        };
+        DeterminateCostFunc costFunction = new DeterminateCostFunc(paraboloid, wrong, 2, new Config());
+        for (DoubleVector x: Arrays.asList(DoubleVector.valueOf(1, 1), DoubleVector.valueOf(-1, 1)))
+            try {
+                costFunction.getGradient(x);
+                fail("Gradient " + wrong.apply(x) + " must be rejected");
+            } catch (IllegalArgumentException expected) {
+                // wrong dimension or out of the domain
+            }
+    }
+
+    public void testSubGradientsAreTakenFromOracle() {
+        final List<DoubleVector> subgradients = Collections.singletonList(DoubleVector.valueOf(0, 1));
+        BiFunction<DoubleVector, Double, List<DoubleVector>> oracle =
+                new BiFunction<DoubleVector, Double, List<DoubleVector>>() {
+                    @Override
+                    public List<DoubleVector> apply(DoubleVector x, Double area) {
+                        return subgradients;
+                    }
+                };
+        DeterminateCostFunc costFunction = new DeterminateCostFunc(paraboloid, gradient, oracle, 2, new Config());
+        assertEquals(subgradients, costFunction.getSubGradients(DoubleVector.valueOf(1, 1), 0.1));
+        assertEquals(0, gradientCalls.get());
+    }
+
+    public void testSubGradientsAreSampledByGradientWithoutOracle() {
+        Config config = new Config();
+        DeterminateCostFunc costFunction = new DeterminateCostFunc(paraboloid, gradient, 2, config);
+        DoubleVector x = DoubleVector.valueOf(1, 1);
+        List<DoubleVector> subgradients = costFunction.getSubGradients(x, 5 * config.accuracyOfDomainSearch);
+
+        assertEquals(5, subgradients.size());
+        assertEquals(5, gradientCalls.get());
+        DoubleVector last = x.plus(5 * config.accuracyOfDomainSearch);
+        assertEquals(2 * (last.get(0) - 1), subgradients.get(4).get(0), 1e-9);
+    }
+
+    public void testOptimizatorUsesGradientOracle() {
+        final AtomicInteger oracleCalls = new AtomicInteger();
+        Optimizator<Double> optimizator = new Optimizator<>(2, Function.<Double>identity(), Function.<Double>identity(),
+                Double.class, new Function<Double[], Double>() {
+                    @Override
+                    public Double apply(Double[] x) {
+                        return (x[0] - 1) * (x[0] - 1) + 3 * (x[1] + 2) * (x[1] + 2);
+                    }
+                }, new Function<Double[], double[]>() {
+                    @Override
+                    public double[] apply(Double[] x) {
+                        oracleCalls.incrementAndGet();
+                        return new double[] {2 * (x[0] - 1), 6 * (x[1] + 2)};
+                    }
+                });
+        Config config = new Config();
+        config.setAlgorithmParams(0.1);
+        config.setMaxIterationsNumber(100);
+        Result<?> result = optimizator.optimize(config, Collections.singletonList(new Double[] {3., 3.}));
+
+        assertTrue(oracleCalls.get() > 0);
+        assertEquals(0, (Double) result.getOptimizedDecision(true, false).getValue(), 1e-2);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.function.Function;
+
+/**
+ * Checks finite-difference derivatives of the {@link UndeterminateCostFunc} by every {@link DifferenceScheme}
+ * against the analytic ones
+ */
+public class DifferenceSchemeTest extends TestCase {
+
+    // sin(x0) * exp(x1), defined only for x0 <= 1
+    private static final Function<DoubleVector, Double> SIN_EXP = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            return (x.get(0) <= 1) ? Math.sin(x.get(0)) * Math.exp(x.get(1)) : null;
+        }
+    };
+
+    private static UndeterminateCostFunc withScheme(DifferenceScheme scheme) {
+        Config config = new Config();
+        config.setDifferenceScheme(scheme, false);
+        return new UndeterminateCostFunc(SIN_EXP, 2, config);
+    }
+
+    public void testSchemesConvergeToAnalyticDerivative() {
+        DoubleVector x = DoubleVector.valueOf(0.3, 0.2);
+        double expected = Math.cos(0.3) * Math.exp(0.2);
+        double forward = Math.abs(withScheme(DifferenceScheme.FORWARD).getPartialDerivative(x, 0) - expected);
+        double central = Math.abs(withScheme(DifferenceScheme.CENTRAL).getPartialDerivative(x, 0) - expected);
+        double richardson = Math.abs(withScheme(DifferenceScheme.RICHARDSON).getPartialDerivative(x, 0) - expected);
+
+        assertTrue("forward error " + forward, forward < 1e-2);
+        assertTrue("central error " + central, central < 1e-4);
+        assertTrue("richardson error " + richardson, richardson < 1e-7);
+        assertTrue(central < forward && richardson < central);
+    }
+
+    public void testSchemesFallBackToOneSidedDifferenceAtDomainBorder() {
+        DoubleVector x = DoubleVector.valueOf(0.995, 0); // x0 + step is out of the domain
+        double expected = Math.cos(0.995);
+        for (DifferenceScheme scheme: new DifferenceScheme[] {DifferenceScheme.CENTRAL, DifferenceScheme.RICHARDSON})
+            assertEquals(scheme.toString(), expected, withScheme(scheme).getPartialDerivative(x, 0), 1e-2);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+import ru.mipt.optimization.supportive.MathHelp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Checks nearest search and eviction of the {@link DomainIndex} against the brute force over the added points
+ * and that the domain search takes only the known points in its direction
+ */
+public class DomainIndexTest extends TestCase {
+
+    // defined only for x0 <= 1
+    private static final Function<DoubleVector, Double> HALF_PLANE = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            return (x.get(0) <= 1) ? x.get(0) + x.get(1) : null;
+        }
+    };
+
+    private static DoubleVector randomPoint(Random random) {
+        return DoubleVector.valueOf(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+    }
+
+    private static DoubleVector bruteForceNearest(List<DoubleVector> points, DoubleVector point,
+                                                  Predicate<DoubleVector> filter) {
+        DoubleVector best = null;
+        for (DoubleVector p: points)
+            if ((filter == null || filter.test(p))
+                    && (best == null || MathHelp.getDistance(p, point) < MathHelp.getDistance(best, point))) best = p;
+        return best;
+    }
+
+    public void testNearestMatchesBruteForce() {
+        DomainIndex index = new DomainIndex(10000);
+        List<DoubleVector> inDomain = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            DoubleVector p = randomPoint(random);
+            boolean in = random.nextBoolean();
+            index.add(p, in);
+            if (in) inDomain.add(p);
+        }
+        Predicate<DoubleVector> positive = new Predicate<DoubleVector>() {
+            @Override
+            public boolean test(DoubleVector p) {
+                return p.get(0) > 0;
+            }
+        };
+        for (int i = 0; i < 200; i++) {
+            DoubleVector query = randomPoint(random);
+            assertEquals(bruteForceNearest(inDomain, query, null), index.getNearestInDomain(query));
+            assertEquals(bruteForceNearest(inDomain, query, positive), index.getNearestInDomain(query, positive));
+        }
+    }
+
+    public void testEvictionDropsEarliestHalf() {
+        DomainIndex index = new DomainIndex(100);
+        List<DoubleVector> added = new ArrayList<>();
+        Random random = new Random(4);
+        for (int i = 0; i < 101; i++) {
+            DoubleVector p = randomPoint(random);
+            index.add(p, i % 2 == 0);
+            added.add(p);
+        }
+
+        assertEquals(50, index.size());
+        for (int i = 0; i < 51; i++) assertNull(index.isInDomain(added.get(i)));
+        List<DoubleVector> inDomain = new ArrayList<>();
+        for (int i = 51; i < 101; i++) {
+            assertEquals(Boolean.valueOf(i % 2 == 0), index.isInDomain(added.get(i)));
+            if (i % 2 == 0) inDomain.add(added.get(i));
+        }
+        for (int i = 0; i < 50; i++) { // rebuilt tree holds only the remaining domain points
+            DoubleVector query = randomPoint(random);
+            assertEquals(bruteForceNearest(inDomain, query, null), index.getNearestInDomain(query));
+        }
+    }
+
+    public void testIndexIsOffByDefault() {
+        assertNull(new UndeterminateCostFunc(HALF_PLANE, 2, new Config()).getDomainIndex());
+    }
+
+    public void testKnownPointInOtherDirectionIsNotTaken() {
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(HALF_PLANE, 2, new Config());
+        DomainIndex index = new DomainIndex();
+        index.add(DoubleVector.valueOf(1, 1.5), true); // nearer to the point than the direction point, but aside
+        costFunction.setDomainIndex(index);
+
+        DoubleVector found = costFunction.getNearestDomainPoint(DoubleVector.valueOf(2, 1), DoubleVector.valueOf(0, 1));
+        assertEquals(1., found.get(1));
+        assertEquals(1., found.get(0), new Config().accuracyOfDomainSearch);
+    }
+
+    public void testKnownPointOnSegmentShortensSearch() {
+        Config config = new Config();
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(HALF_PLANE, 2, config);
+        DoubleVector out = DoubleVector.valueOf(2, 1);
+        DoubleVector direction = DoubleVector.valueOf(-6, 1);
+        int withoutIndex = costFunction.searchDomain(out, direction).getProbesNumber();
+
+        DomainIndex index = new DomainIndex();
+        index.add(DoubleVector.valueOf(1 - config.accuracyOfDomainSearch / 4, 1), true);
+        costFunction.setDomainIndex(index);
+        UndeterminateCostFunc.DomainSearch search = costFunction.searchDomain(out, direction);
+
+        assertTrue(search.getProbesNumber() + " probes", search.getProbesNumber() < withoutIndex);
+        assertEquals(1., search.getDomainPoint().get(0), config.accuracyOfDomainSearch);
+        assertEquals(1., search.getDomainPoint().get(1));
+    }
+}
@@ -0,0 +1,68 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.function.Function;
+
+/**
+ * Checks the bounded bisection searching the domain of the {@link UndeterminateCostFunc}
+ */
+public class DomainSearchTest extends TestCase {
+
+    // sin(x0) * exp(x1), defined only for x0 <= 1
+    private static final Function<DoubleVector, Double> SIN_EXP = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            return (x.get(0) <= 1) ? Math.sin(x.get(0)) * Math.exp(x.get(1)) : null;
+        }
+    };
+
+    public void testDomainSearchFindsBorderWithinAccuracy() {
+        Config config = new Config();
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(SIN_EXP, 2, config);
+        UndeterminateCostFunc.DomainSearch search = costFunction.searchDomain(DoubleVector.valueOf(3, 1),
+                DoubleVector.valueOf(-5, 1));
+        DoubleVector found = search.getDomainPoint();
+
+        assertNotNull(SIN_EXP.apply(found));
+        assertEquals(1., found.get(1));
+        assertTrue("found " + found, found.get(0) <= 1 && found.get(0) > 1 - config.accuracyOfDomainSearch);
+        assertFalse(search.isExhausted());
+        assertEquals(search.getProbesNumber(), costFunction.getDomainProbesNumber());
+    }
+
+    public void testDomainSearchStopsAtBudget() {
+        Config config = new Config();
+        config.setDomainSearchBudget(3);
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(SIN_EXP, 2, config);
+        UndeterminateCostFunc.DomainSearch search = costFunction.searchDomain(DoubleVector.valueOf(3.3, 1),
+                DoubleVector.valueOf(-5, 1)); // probes 3.3, -0.85 and 1.225
+
+        assertEquals(3, search.getProbesNumber());
+        assertTrue(search.isExhausted());
+        assertNotNull(SIN_EXP.apply(search.getDomainPoint())); // the end in the domain is returned
+        assertEquals(-0.85, search.getDomainPoint().get(0), 1e-12);
+    }
+
+    public void testDomainSearchDoesNotProbeNearDirectionPoint() {
+        Config config = new Config();
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(SIN_EXP, 2, config);
+        DoubleVector directionPoint = DoubleVector.valueOf(1, 1);
+        UndeterminateCostFunc.DomainSearch search = costFunction.searchDomain(
+                DoubleVector.valueOf(1 + config.accuracyOfDomainSearch / 2, 1), directionPoint);
+        assertEquals(0, search.getProbesNumber());
+        assertEquals(directionPoint, search.getDomainPoint());
+    }
+
+    public void testPointInDomainIsRejected() {
+        try {
+            new UndeterminateCostFunc(SIN_EXP, 2, new Config()).getNearestDomainPoint(DoubleVector.valueOf(0, 1),
+                    DoubleVector.valueOf(-1, 1));
+            fail("Point in the domain must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // nothing to search
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Checks hit and miss counters of the {@link EvaluationCache}, its eviction policies
+ * and that the {@link CostFunction} consults it
+ */
+public class EvaluationCacheTest extends TestCase {
+
+    private final Map<DoubleVector, Integer> calls = new HashMap<>();
+
+    // x0 + 2 x1, defined only for x0 >= 0
+    private final Function<DoubleVector, Double> plane = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            Integer n = calls.get(x);
+            calls.put(x, (n == null) ? 1 : n + 1);
+            return (x.get(0) < 0) ? null : x.get(0) + 2 * x.get(1);
+        }
+    };
+
+    private int callsOf(DoubleVector x) {
+        Integer n = calls.get(x);
+        return (n == null) ? 0 : n;
+    }
+
+    public void testHitsAndMissesAreCounted() {
+        EvaluationCache cache = new EvaluationCache(64, EvaluationCache.EvictionPolicy.LRU);
+        DoubleVector x = DoubleVector.valueOf(1, 2);
+        assertEquals(5.0, cache.apply(x, plane));
+        assertEquals(5.0, cache.apply(DoubleVector.valueOf(1, 2), plane)); // equal point, not the same one
+        assertEquals(1, callsOf(x));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    public void testPointsOutOfDomainAreNotCached() {
+        EvaluationCache cache = new EvaluationCache(64, EvaluationCache.EvictionPolicy.LRU);
+        DoubleVector x = DoubleVector.valueOf(-1, 2);
+        assertNull(cache.apply(x, plane));
+        assertNull(cache.apply(x, plane));
+        assertEquals(2, callsOf(x));
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.size());
+    }
+
+    public void testSizeIsBoundedByCapacity() {
+        EvaluationCache cache = new EvaluationCache(64, EvaluationCache.EvictionPolicy.FIFO);
+        for (int i = 0; i < 1000; i++) cache.apply(DoubleVector.valueOf(i, 0), plane);
+        assertEquals(64, cache.size());
+        assertEquals(1000, cache.getMissCount());
+    }
+
+    public void testSizeIsBoundedByCapacityNotMultipleOfSegments() {
+        for (int capacity: new int[] {1, 15, 17, 100}) {
+            EvaluationCache cache = new EvaluationCache(capacity, EvaluationCache.EvictionPolicy.LRU);
+            for (int i = 0; i < 10 * capacity + 100; i++) cache.apply(DoubleVector.valueOf(i, 0), plane);
+            assertTrue("capacity " + capacity, cache.size() <= capacity);
+        }
+    }
+
+    public void testRecentlyUsedPointIsKeptByLru() {
+        EvaluationCache cache = new EvaluationCache(64, EvaluationCache.EvictionPolicy.LRU);
+        DoubleVector kept = DoubleVector.valueOf(0.5, 0.5);
+        cache.apply(kept, plane);
+        for (int i = 0; i < 1000; i++) {
+            cache.apply(DoubleVector.valueOf(i, 1), plane);
+            cache.apply(kept, plane);
+        }
+        assertEquals(1, callsOf(kept));
+    }
+
+    public void testEarliestPointIsEvictedByFifo() {
+        EvaluationCache cache = new EvaluationCache(64, EvaluationCache.EvictionPolicy.FIFO);
+        DoubleVector earliest = DoubleVector.valueOf(0.5, 0.5);
+        cache.apply(earliest, plane);
+        for (int i = 0; i < 1000; i++) {
+            cache.apply(DoubleVector.valueOf(i, 1), plane);
+            cache.apply(earliest, plane);
+        }
+        assertTrue(callsOf(earliest) > 1);
+    }
+
+    public void testCostFunctionConsultsCache() {
+        EvaluationCache cache = new EvaluationCache(64, EvaluationCache.EvictionPolicy.LRU);
+        CostFunction costFunction = new UndeterminateCostFunc(plane, 2, new Config());
+        costFunction.setEvaluationCache(cache);
+        DoubleVector x = DoubleVector.valueOf(3, 1);
+        assertEquals(5.0, costFunction.apply(x));
+        assertEquals(5.0, costFunction.apply(x));
+        assertEquals(1, callsOf(x));
+        assertEquals(1, cache.getHitCount());
+    }
+}
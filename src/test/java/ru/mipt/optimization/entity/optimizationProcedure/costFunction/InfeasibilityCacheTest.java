@@ -0,0 +1,66 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.function.Function;
+
+/**
+ * Checks the answers of the {@link InfeasibilityCache} and of the cost function consulting it
+ * after the cells with domain points have been evicted
+ */
+public class InfeasibilityCacheTest extends TestCase {
+
+    // domain is x < 0.5 or x > 5, so the cell [0, 1) is crossed by its border
+    private static final Function<DoubleVector, Double> SQUARE_WITH_GAP = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            double d = x.get(0);
+            return (d < 0.5 || d > 5) ? d * d : null;
+        }
+    };
+
+    public void testExactPolicyAnswersOnlyKnownPoints() {
+        InfeasibilityCache cache = new InfeasibilityCache(10, 1, InfeasibilityCache.FalsePositivePolicy.EXACT);
+        cache.addInfeasible(DoubleVector.valueOf(0.7));
+        assertTrue(cache.isInfeasible(DoubleVector.valueOf(0.7)));
+        assertFalse(cache.isInfeasible(DoubleVector.valueOf(0.8)));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    public void testQuantizedPolicyAnswersWholeCell() {
+        InfeasibilityCache cache = new InfeasibilityCache(10, 1, InfeasibilityCache.FalsePositivePolicy.QUANTIZED);
+        cache.addInfeasible(DoubleVector.valueOf(0.7));
+        assertTrue(cache.isInfeasible(DoubleVector.valueOf(0.2)));
+        assertFalse(cache.isInfeasible(DoubleVector.valueOf(1.2)));
+    }
+
+    public void testInfeasiblePointsDontEvictFeasibleCells() {
+        InfeasibilityCache cache = new InfeasibilityCache(2, 1, InfeasibilityCache.FalsePositivePolicy.QUANTIZED);
+        cache.addFeasible(DoubleVector.valueOf(0.2));
+        cache.addInfeasible(DoubleVector.valueOf(3.5));
+        cache.addInfeasible(DoubleVector.valueOf(4.5));
+        cache.addInfeasible(DoubleVector.valueOf(0.7));
+
+        assertFalse(cache.isInfeasible(DoubleVector.valueOf(0.2)));
+        assertTrue(cache.isInfeasible(DoubleVector.valueOf(3.5)));
+        assertEquals(2, cache.size());
+    }
+
+    public void testEvictedFeasibleCellKeepsAcceptedPointInDomain() {
+        Config config = new Config();
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(SQUARE_WITH_GAP, 1, config);
+        costFunction.setEvaluationCache(new EvaluationCache(100, EvaluationCache.EvictionPolicy.FIFO));
+        costFunction.setInfeasibilityCache(
+                new InfeasibilityCache(1, 1, InfeasibilityCache.FalsePositivePolicy.QUANTIZED));
+
+        DoubleVector accepted = DoubleVector.valueOf(0.2);
+        assertEquals(0.04, costFunction.apply(accepted), 1e-12);
+        assertEquals(36., costFunction.apply(DoubleVector.valueOf(6)), 1e-12); // evicts the cell of the accepted point
+        assertNull(costFunction.apply(DoubleVector.valueOf(0.7))); // marks that cell infeasible
+
+        assertEquals(0.04, costFunction.apply(accepted), 1e-12);
+        assertFalse(costFunction.getInfeasibilityCache().isInfeasible(accepted));
+    }
+}
@@ -0,0 +1,154 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.Optimizator;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Checks the incremental evaluation of the {@link PartiallySeparableCostFunc} against the full sum of its elements
+ * and validation of the element indices
+ */
+public class PartiallySeparableCostFuncTest extends TestCase {
+
+    private static final int DIMENSION = 12;
+
+    // chain of the elements (x_k - x_{k+1})^2 + sin(x_k)
+    private static List<ElementFunction> chain() {
+        List<ElementFunction> elements = new ArrayList<>();
+        for (int k = 0; k < DIMENSION - 1; k++)
+            elements.add(new ElementFunction(new int[] {k, k + 1}, new Function<double[], Double>() {
+                @Override
+                public Double apply(double[] x) {
+                    return (x[0] - x[1]) * (x[0] - x[1]) + Math.sin(x[0]);
+                }
+            }));
+        return elements;
+    }
+
+    private static double fullSum(List<ElementFunction> elements, DoubleVector x) {
+        double res = 0;
+        for (ElementFunction element: elements) res += element.apply(x);
+        return res;
+    }
+
+    public void testIncrementalSumMatchesFullEvaluation() {
+        List<ElementFunction> elements = chain();
+        PartiallySeparableCostFunc costFunction = new PartiallySeparableCostFunc(elements, DIMENSION, new Config());
+        Random random = new Random(7);
+        DoubleVector x = DoubleVector.twin(DIMENSION, 0);
+        for (int step = 0; step < 500; step++) {
+            if (step % 5 == 0) { // occasionally jump in all the coordinates
+                double[] point = new double[DIMENSION];
+                for (int i = 0; i < DIMENSION; i++) point[i] = random.nextGaussian();
+                x = DoubleVector.wrap(point);
+            } else {
+                x = x.plus(random.nextInt(DIMENSION), random.nextGaussian());
+            }
+            assertEquals(fullSum(elements, x), costFunction.apply(x), 1e-12);
+        }
+    }
+
+    public void testMoveAlongCoordinateEvaluatesOnlyItsElements() {
+        PartiallySeparableCostFunc costFunction = new PartiallySeparableCostFunc(chain(), DIMENSION, new Config());
+        DoubleVector x = DoubleVector.twin(DIMENSION, 1);
+        costFunction.apply(x);
+        long before = costFunction.getElementEvaluationsNumber();
+        costFunction.apply(x.plus(5, 0.1));
+        assertEquals(2, costFunction.getElementEvaluationsNumber() - before); // elements 4 and 5
+        costFunction.apply(x.plus(0, 0.1));
+        assertEquals(2 + 3, costFunction.getElementEvaluationsNumber() - before); // 4 and 5 back, and 0
+    }
+
+    public void testCoordinateDeltaMatchesFullDifference() {
+        List<ElementFunction> elements = chain();
+        PartiallySeparableCostFunc costFunction = new PartiallySeparableCostFunc(elements, DIMENSION, new Config());
+        DoubleVector x = DoubleVector.twin(DIMENSION, 0.3).plus(3, 1);
+        costFunction.apply(x);
+        for (int dir = 0; dir < DIMENSION; dir++)
+            assertEquals(fullSum(elements, x.plus(dir, 0.25)) - fullSum(elements, x),
+                    costFunction.getCoordinateDelta(x, dir, 0.25), 1e-12);
+    }
+
+    public void testPartialDerivativeEvaluatesOnlyElementsOfCoordinate() {
+        final List<ElementFunction> elements = chain();
+        PartiallySeparableCostFunc costFunction = new PartiallySeparableCostFunc(elements, DIMENSION, new Config());
+        UndeterminateCostFunc reference = new UndeterminateCostFunc(new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector x) {
+                return fullSum(elements, x);
+            }
+        }, DIMENSION, new Config());
+        DoubleVector x = DoubleVector.twin(DIMENSION, 0.3).plus(3, 1);
+        costFunction.apply(x);
+        for (int dir = 0; dir < DIMENSION; dir++) {
+            long before = costFunction.getElementEvaluationsNumber();
+            assertEquals("derivative " + dir, reference.getPartialDerivative(x, dir),
+                    costFunction.getPartialDerivative(x, dir), 1e-6);
+            int dependent = (dir == 0 || dir == DIMENSION - 1) ? 1 : 2;
+            assertEquals("derivative " + dir, dependent, costFunction.getElementEvaluationsNumber() - before);
+        }
+    }
+
+    public void testSparseGradientMatchesAnalyticOne() {
+        Config config = new Config();
+        config.setGradientEstimation(GradientEstimation.SPARSE_FINITE_DIFFERENCES);
+        config.setDifferenceScheme(DifferenceScheme.CENTRAL, false);
+        PartiallySeparableCostFunc costFunction = new PartiallySeparableCostFunc(chain(), DIMENSION, config);
+        double[] point = new double[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) point[i] = 0.1 * i * i;
+        DoubleVector x = DoubleVector.wrap(point);
+
+        DoubleVector gradient = costFunction.getGradient(x);
+        for (int i = 0; i < DIMENSION; i++) {
+            double expected = 0;
+            if (i < DIMENSION - 1) expected += 2 * (point[i] - point[i + 1]) + Math.cos(point[i]);
+            if (i > 0) expected -= 2 * (point[i - 1] - point[i]);
+            assertEquals("derivative " + i, expected, gradient.get(i), 1e-3);
+        }
+        assertEquals(2, costFunction.getSparsityPattern().getGroupsNumber()); // even and odd coordinates
+    }
+
+    public void testRepeatedIndicesOfElementAreRejected() {
+        try {
+            new ElementFunction(new int[] {1, 1}, new Function<double[], Double>() {
+                @Override
+                public Double apply(double[] x) {
+                    return x[0];
+                }
+            });
+            fail("Repeated index must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // element over the same coordinate twice
+        }
+    }
+
+    public void testOptimizatorRejectsIndicesOutOfDimension() {
+        Optimizator<Double> optimizator = new Optimizator<>(3, Function.<Double>identity(), Function.<Double>identity(),
+                Double.class, new Function<Double[], Double>() {
+                    @Override
+                    public Double apply(Double[] x) {
+                        return x[0];
+                    }
+                });
+        Function<Double[], Double> element = new Function<Double[], Double>() {
+            @Override
+            public Double apply(Double[] x) {
+                return x[0];
+            }
+        };
+        for (int[] indices: new int[][] {{-1}, {3}, {0, 2, 0}})
+            try {
+                optimizator.addElementFunction(indices, element);
+                fail("Indices must be rejected");
+            } catch (IllegalArgumentException expected) {
+                // out of the dimension or repeated
+            }
+        assertTrue(optimizator.getElementFunctions().isEmpty());
+    }
+}
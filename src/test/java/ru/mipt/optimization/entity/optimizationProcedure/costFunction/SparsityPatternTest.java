@@ -0,0 +1,171 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Checks validity of the Curtis-Powell-Reid grouping of the {@link SparsityPattern}
+ * and the sparse gradient against the dense one
+ */
+public class SparsityPatternTest extends TestCase {
+
+    private static final int DIMENSION = 30;
+
+    private final AtomicInteger elementRuleCalls = new AtomicInteger();
+
+    // every element depends on 1 to 4 random coordinates
+    private static int[][] randomDependencies(Random random, int elementsNum) {
+        int[][] res = new int[elementsNum][];
+        for (int k = 0; k < elementsNum; k++) {
+            res[k] = new int[1 + random.nextInt(4)];
+            for (int j = 0; j < res[k].length; j++) res[k][j] = random.nextInt(DIMENSION);
+        }
+        return res;
+    }
+
+    private static void assertValidGrouping(SparsityPattern pattern) {
+        int[] occurrences = new int[pattern.getDimension()];
+        for (int g = 0; g < pattern.getGroupsNumber(); g++)
+            for (int i: pattern.getGroup(g)) {
+                occurrences[i]++;
+                assertEquals(g, pattern.getGroupOf(i));
+            }
+        for (int i = 0; i < pattern.getDimension(); i++) assertEquals("coordinate " + i, 1, occurrences[i]);
+
+        for (int k = 0; k < pattern.getElementsNumber(); k++) {
+            int[] dependencies = pattern.getDependencies(k);
+            for (int a = 0; a < dependencies.length; a++)
+                for (int b = a + 1; b < dependencies.length; b++)
+                    assertTrue("element " + k + " has coordinates " + dependencies[a] + " and " + dependencies[b]
+                            + " in the same group", pattern.getGroupOf(dependencies[a]) != pattern.getGroupOf(dependencies[b]));
+        }
+    }
+
+    public void testGroupsOfRandomPatternsAreValid() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 50; trial++) {
+            SparsityPattern pattern = new SparsityPattern(DIMENSION, randomDependencies(random, 1 + random.nextInt(40)));
+            assertValidGrouping(pattern);
+            assertTrue(pattern.getGroupsNumber() <= DIMENSION);
+        }
+    }
+
+    public void testDenseElementNeedsGroupPerCoordinate() {
+        int[] all = new int[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) all[i] = i;
+        SparsityPattern pattern = new SparsityPattern(DIMENSION, new int[][] {all});
+        assertEquals(DIMENSION, pattern.getGroupsNumber());
+        assertValidGrouping(pattern);
+    }
+
+    public void testSeparableFunctionNeedsOneGroup() {
+        int[][] dependencies = new int[DIMENSION][];
+        for (int i = 0; i < DIMENSION; i++) dependencies[i] = new int[] {i};
+        assertEquals(1, new SparsityPattern(DIMENSION, dependencies).getGroupsNumber());
+    }
+
+    public void testLongChainNeedsTwoGroups() {
+        int dimension = 200000; // clearing all the colors per coordinate is quadratic in it
+        int[][] dependencies = new int[dimension - 1][];
+        for (int i = 0; i < dimension - 1; i++) dependencies[i] = new int[] {i, i + 1};
+        SparsityPattern pattern = new SparsityPattern(dimension, dependencies);
+        assertEquals(2, pattern.getGroupsNumber());
+        for (int i = 0; i < dimension - 1; i++) assertTrue(pattern.getGroupOf(i) != pattern.getGroupOf(i + 1));
+    }
+
+    public void testOutOfDimensionCoordinateIsRejected() {
+        try {
+            new SparsityPattern(3, new int[][] {{0, 3}});
+            fail("Coordinate out of the dimension must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // coordinate 3 of the 3-dimensional function
+        }
+    }
+
+    public void testDetectedPatternMatchesDeclaredOne() {
+        int[][] declared = randomDependencies(new Random(12), 20);
+        SparsityPattern detected = SparsityPattern.detect(elementRule(declared), DoubleVector.twin(DIMENSION, 0.5), 1e-3);
+        SparsityPattern expected = new SparsityPattern(DIMENSION, declared);
+        assertEquals(expected.getElementsNumber(), detected.getElementsNumber());
+        for (int k = 0; k < expected.getElementsNumber(); k++) {
+            int[] a = expected.getDependencies(k).clone(), b = detected.getDependencies(k).clone();
+            Arrays.sort(a);
+            Arrays.sort(b);
+            assertTrue("element " + k, Arrays.equals(a, b));
+        }
+    }
+
+    public void testSparseGradientMatchesDenseOne() {
+        int[][] dependencies = randomDependencies(new Random(13), 25);
+        Function<DoubleVector, DoubleVector> elementRule = elementRule(dependencies);
+        Function<DoubleVector, Double> sum = sumOf(elementRule);
+        SparsityPattern pattern = new SparsityPattern(DIMENSION, dependencies);
+        Random random = new Random(14);
+        double[] point = new double[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) point[i] = random.nextGaussian();
+        DoubleVector x = DoubleVector.wrap(point);
+
+        Config denseConfig = new Config();
+        denseConfig.setDifferenceScheme(DifferenceScheme.CENTRAL, false);
+        DoubleVector dense = new UndeterminateCostFunc(sum, DIMENSION, denseConfig).getGradient(x);
+
+        Config sparseConfig = new Config();
+        sparseConfig.setDifferenceScheme(DifferenceScheme.CENTRAL, false);
+        sparseConfig.setGradientEstimation(GradientEstimation.SPARSE_FINITE_DIFFERENCES);
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(sum, DIMENSION, sparseConfig);
+        costFunction.setElementRule(elementRule, pattern);
+        elementRuleCalls.set(0);
+        DoubleVector sparse = costFunction.getGradient(x);
+
+        for (int i = 0; i < DIMENSION; i++) assertEquals("derivative " + i, dense.get(i), sparse.get(i), 1e-6);
+        assertTrue(elementRuleCalls.get() + " calls of the element rule for " + pattern.getGroupsNumber() + " groups",
+                elementRuleCalls.get() <= 2 * pattern.getGroupsNumber() + 1);
+    }
+
+    public void testRepeatedDependenciesAreCountedOnce() {
+        SparsityPattern pattern = new SparsityPattern(3, new int[][] {{0, 1, 0}, {2, 2}});
+        assertEquals(2, pattern.getDependencies(0).length);
+        assertEquals(1, pattern.getDependencies(1).length);
+        assertEquals(2, pattern.getGroupsNumber());
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    // element k is sin of the weighted sum of its coordinates plus their product
+    private Function<DoubleVector, DoubleVector> elementRule(final int[][] dependencies) {
+        return new Function<DoubleVector, DoubleVector>() {
+            @Override
+            public DoubleVector apply(DoubleVector x) {
+                elementRuleCalls.incrementAndGet();
+                double[] res = new double[dependencies.length];
+                for (int k = 0; k < dependencies.length; k++) {
+                    double weighted = 0, product = 1;
+                    for (int j = 0; j < dependencies[k].length; j++) {
+                        weighted += (j + 1) * x.get(dependencies[k][j]);
+                        product *= x.get(dependencies[k][j]);
+                    }
+                    res[k] = Math.sin(weighted) + product;
+                }
+                return DoubleVector.wrap(res);
+            }
+        };
+    }
+
+    private static Function<DoubleVector, Double> sumOf(final Function<DoubleVector, DoubleVector> elementRule) {
+        return new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector x) {
+                DoubleVector elements = elementRule.apply(x);
+                double res = 0;
+                for (int k = 0; k < elements.getDimension(); k++) res += elements.get(k);
+                return res;
+            }
+        };
+    }
+}
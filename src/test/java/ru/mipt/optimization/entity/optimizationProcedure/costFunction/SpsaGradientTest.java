@@ -0,0 +1,84 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Checks SPSA gradient estimation of the {@link UndeterminateCostFunc} against the analytic gradient
+ */
+public class SpsaGradientTest extends TestCase {
+
+    private static final double[] WEIGHTS = {1, 2, -1, 0.5};
+
+    public void testSpsaOfOneDimensionalFunctionIsCentralDifference() {
+        Config config = new Config();
+        config.setSpsaGradientEstimation(1, 1L);
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector x) {
+                return x.get(0) * x.get(0);
+            }
+        }, 1, config);
+        for (double x = -2; x <= 2; x += 0.5) // central difference of the parabola is exact
+            assertEquals(2 * x, costFunction.getGradient(DoubleVector.valueOf(x)).get(0), 1e-9);
+    }
+
+    public void testSpsaAveragesToGradient() {
+        Config config = new Config();
+        config.setSpsaGradientEstimation(4000, 2L);
+        DoubleVector gradient = new UndeterminateCostFunc(linear(null), WEIGHTS.length, config)
+                .getGradient(DoubleVector.valueOf(0.3, -0.2, 0.7, 1.1));
+        for (int i = 0; i < WEIGHTS.length; i++) // standard deviation is about 0.04
+            assertEquals("derivative " + i, WEIGHTS[i], gradient.get(i), 0.2);
+    }
+
+    public void testSpsaCostsTwoEvaluationsPerPerturbation() {
+        AtomicInteger calls = new AtomicInteger();
+        Config config = new Config();
+        config.setSpsaGradientEstimation(5, 3L);
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(linear(calls), WEIGHTS.length, config);
+        costFunction.getGradient(DoubleVector.valueOf(0.3, -0.2, 0.7, 1.1));
+        assertEquals(10, calls.get());
+    }
+
+    public void testSpsaIsReproducibleWithSeed() {
+        DoubleVector x = DoubleVector.valueOf(0.3, -0.2, 0.7, 1.1);
+        Config config = new Config();
+        config.setSpsaGradientEstimation(3, 4L);
+        DoubleVector first = new UndeterminateCostFunc(linear(null), WEIGHTS.length, config).getGradient(x);
+        DoubleVector second = new UndeterminateCostFunc(linear(null), WEIGHTS.length, config).getGradient(x);
+        assertEquals(first, second);
+    }
+
+    public void testSpsaFallsBackToOneSidedDifferenceAtDomainBorder() {
+        Config config = new Config();
+        config.setSpsaGradientEstimation(20, 5L);
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector x) {
+                return (x.get(0) <= 1) ? 3 * x.get(0) : null;
+            }
+        }, 1, config);
+        DoubleVector x = DoubleVector.valueOf(1 - config.accuracyOfDomainSearch / 2); // one side is out of the domain
+        assertEquals(3., costFunction.getGradient(x).get(0), 1e-9);
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    // sum of WEIGHTS[i] * x_i, counting its calls if calls aren't null
+    private static Function<DoubleVector, Double> linear(final AtomicInteger calls) {
+        return new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector x) {
+                if (calls != null) calls.incrementAndGet();
+                double res = 0;
+                for (int i = 0; i < WEIGHTS.length; i++) res += WEIGHTS[i] * x.get(i);
+                return res;
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package ru.mipt.optimization.entity.optimizationProcedure.costFunction;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Checks that {@link UndeterminateCostFunc#getSubGradients} gives a subgradient for every sample,
+ * evaluates every sample once and that {@link CostFunction#getRankedSubGradients} ranks them by the direction
+ */
+public class SubGradientsTest extends TestCase {
+
+    private final Map<DoubleVector, Integer> calls = new HashMap<>();
+
+    // |x0 - 0.5| + 2|x1 - 0.5|, defined only for x0 <= 1
+    private final Function<DoubleVector, Double> wedge = new Function<DoubleVector, Double>() {
+        @Override
+        public Double apply(DoubleVector x) {
+            Integer n = calls.get(x);
+            calls.put(x, (n == null) ? 1 : n + 1);
+            if (x.get(0) > 1) return null;
+            return Math.abs(x.get(0) - 0.5) + 2 * Math.abs(x.get(1) - 0.5);
+        }
+    };
+
+    public void testEverySampleGivesSubgradient() {
+        Config config = new Config();
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(wedge, 2, config);
+        double area = 10 * config.accuracyOfDomainSearch;
+        // the walk reaches the domain border after 3 samples and repeats the border point then
+        DoubleVector x = DoubleVector.valueOf(1 - 3.5 * config.accuracyOfDomainSearch, 0.7);
+        assertEquals(10, costFunction.getSubGradients(x, area).size());
+    }
+
+    public void testSampledValuesAreReused() {
+        Config config = new Config();
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(wedge, 2, config);
+        DoubleVector x = DoubleVector.valueOf(0.7, 0.7);
+        List<DoubleVector> subgradients = costFunction.getSubGradients(x, 10 * config.accuracyOfDomainSearch);
+
+        assertEquals(10, subgradients.size());
+        for (Map.Entry<DoubleVector, Integer> entry: calls.entrySet())
+            assertEquals(entry.getKey().toString(), Integer.valueOf(1), entry.getValue());
+        // every sample and the forward difference in each of its coordinates
+        assertEquals(10 * 3, calls.size());
+    }
+
+    public void testSubgradientsAreRankedByDirection() {
+        Config config = new Config();
+        config.setDifferenceScheme(DifferenceScheme.CENTRAL, false);
+        UndeterminateCostFunc costFunction = new UndeterminateCostFunc(wedge, 2, config);
+        // samples cross both kinks, so the subgradients differ
+        DoubleVector x = DoubleVector.valueOf(0.45, 0.45);
+        DoubleVector direction = DoubleVector.valueOf(1, -3);
+        List<DoubleVector> ranked = costFunction.getRankedSubGradients(x, 10 * config.accuracyOfDomainSearch, direction);
+
+        assertEquals(costFunction.getSubGradients(x, 10 * config.accuracyOfDomainSearch).size(), ranked.size());
+        for (int k = 1; k < ranked.size(); k++)
+            assertTrue(direction.times(ranked.get(k - 1)) <= direction.times(ranked.get(k)));
+        assertTrue(direction.times(ranked.get(0)) < direction.times(ranked.get(ranked.size() - 1)));
+    }
+}
@@ -0,0 +1,96 @@
+package ru.mipt.optimization.entity.typeWrapper;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.AutoDiffCostFunc;
+import ru.mipt.optimization.supportive.DoubleVector;
+
+import java.util.function.Function;
+
+/**
+ * Checks derivatives of the {@link Dual} numbers and of the {@link AutoDiffCostFunc} against the analytic ones
+ */
+public class DualTest extends TestCase {
+
+    private static final double EPS = 1e-12;
+
+    // f(x, y, z) = sin(x) * exp(y) + sqrt(z) / x - cos(y * z) + |x - z|^3, null if z < 0
+    private static final Function<Dual[], Dual> F = new Function<Dual[], Dual>() {
+        @Override
+        public Dual apply(Dual[] v) {
+            if (v[2].doubleValue() < 0) return null;
+            return v[0].sin().times(v[1].exp())
+                    .plus(v[2].sqrt().divide(v[0]))
+                    .minus(v[1].times(v[2]).cos())
+                    .plus(v[0].minus(v[2]).abs().pow(3));
+        }
+    };
+
+    private static double[] analyticGradient(double x, double y, double z) {
+        double cube = 3 * (x - z) * Math.abs(x - z);
+        return new double[] {
+                Math.cos(x) * Math.exp(y) - Math.sqrt(z) / (x * x) + cube,
+                Math.sin(x) * Math.exp(y) + z * Math.sin(y * z),
+                0.5 / (Math.sqrt(z) * x) + y * Math.sin(y * z) - cube
+        };
+    }
+
+    public void testElementaryDerivatives() {
+        Dual x = Dual.variable(0.7, 0, 1);
+        assertEquals(Math.cos(0.7), x.sin().getDerivative(0), EPS);
+        assertEquals(-Math.sin(0.7), x.cos().getDerivative(0), EPS);
+        assertEquals(Math.exp(0.7), x.exp().getDerivative(0), EPS);
+        assertEquals(1 / 0.7, x.log().getDerivative(0), EPS);
+        assertEquals(0.5 / Math.sqrt(0.7), x.sqrt().getDerivative(0), EPS);
+        assertEquals(2.5 * Math.pow(0.7, 1.5), x.pow(2.5).getDerivative(0), EPS);
+        assertEquals(-1 / (0.7 * 0.7), x.inverse().getDerivative(0), EPS);
+        assertEquals(-1., x.opposite().getDerivative(0), EPS);
+        assertEquals(1., x.opposite().abs().getDerivative(0), EPS); // |-x|' = 1 for x > 0
+    }
+
+    public void testProductAndQuotientRules() {
+        Dual x = Dual.variable(2, 0, 2);
+        Dual y = Dual.variable(3, 1, 2);
+        Dual quotient = x.times(y).divide(x.plus(y));
+        assertEquals(6. / 5, quotient.doubleValue(), EPS);
+        assertEquals(y.doubleValue() * y.doubleValue() / 25, quotient.getDerivative(0), EPS); // y^2/(x+y)^2
+        assertEquals(x.doubleValue() * x.doubleValue() / 25, quotient.getDerivative(1), EPS); // x^2/(x+y)^2
+    }
+
+    public void testConstantsHaveZeroDerivatives() {
+        Dual c = Dual.constant(5).times(Dual.variable(1, 1, 2)).plus(Dual.constant(2));
+        assertEquals(0., c.getDerivative(0), EPS);
+        assertEquals(5., c.getDerivative(1), EPS);
+        assertEquals(DoubleVector.valueOf(0, 5, 0), c.getDerivatives(3));
+    }
+
+    public void testGradientMatchesAnalyticOne() {
+        AutoDiffCostFunc costFunction = new AutoDiffCostFunc(F, 3, new Config());
+        double[][] points = {{0.5, 0.1, 2}, {1.3, -0.7, 0.2}, {-2, 0.4, 3.5}};
+        for (double[] p: points) {
+            DoubleVector gradient = costFunction.getGradient(DoubleVector.wrap(p));
+            double[] expected = analyticGradient(p[0], p[1], p[2]);
+            for (int i = 0; i < 3; i++) {
+                assertEquals("derivative " + i, expected[i], gradient.get(i), 1e-10);
+                assertEquals("partial " + i, expected[i], costFunction.getPartialDerivative(DoubleVector.wrap(p), i), 1e-10);
+            }
+        }
+    }
+
+    public void testDirectionalDerivativeIsProjectionOfGradient() {
+        AutoDiffCostFunc costFunction = new AutoDiffCostFunc(F, 3, new Config());
+        DoubleVector x = DoubleVector.valueOf(0.9, 0.3, 1.1);
+        DoubleVector direction = DoubleVector.valueOf(1, -2, 0.5);
+        double[] gradient = analyticGradient(0.9, 0.3, 1.1);
+        double expected = gradient[0] - 2 * gradient[1] + 0.5 * gradient[2];
+        assertEquals(expected, costFunction.getDirectionalDerivative(x, direction), 1e-10);
+    }
+
+    public void testValueMatchesFunctionOverDoubles() {
+        AutoDiffCostFunc costFunction = new AutoDiffCostFunc(F, 3, new Config());
+        double x = 0.5, y = 0.1, z = 2;
+        double expected = Math.sin(x) * Math.exp(y) + Math.sqrt(z) / x - Math.cos(y * z) + Math.pow(Math.abs(x - z), 3);
+        assertEquals(expected, costFunction.apply(DoubleVector.valueOf(x, y, z)), EPS);
+        assertNull(costFunction.apply(DoubleVector.valueOf(x, y, -1)));
+    }
+}
@@ -0,0 +1,71 @@
+package ru.mipt.optimization.entity.typeWrapper;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Checks conversion of the numbers which toTypeRule doesn't convert:
+ * the nearest converted multiple of the accuracy whatever was converted before, and its index
+ */
+public class TypeWrapperTest extends TestCase {
+
+    private final AtomicInteger toTypeCalls = new AtomicInteger();
+
+    // converts only the numbers near the integers
+    private final Function<Double, String> nearIntegers = new Function<Double, String>() {
+        @Override
+        public String apply(Double d) {
+            toTypeCalls.incrementAndGet();
+            return (Math.abs(d - Math.rint(d)) < 1e-6) ? String.valueOf(Math.round(d)) : null;
+        }
+    };
+
+    private final Function<String, Double> parse = new Function<String, Double>() {
+        @Override
+        public Double apply(String s) {
+            return Double.valueOf(s);
+        }
+    };
+
+    public void testNearestConvertedMultipleIsTaken() {
+        TypeWrapper<String> wrapper = new TypeWrapper<>(parse, nearIntegers, String.class);
+        assertEquals("0", wrapper.convert(0.45));
+        assertEquals("1", wrapper.convert(0.55));
+        assertEquals("-2", wrapper.convert(-1.7));
+    }
+
+    public void testConversionDoesNotDependOnNumbersConvertedBefore() {
+        double[] numbers = {0.45, 0.0, 0.52, 1.0, 0.48, 3.3, 2.6, 0.5};
+        TypeWrapper<String> forward = new TypeWrapper<>(parse, nearIntegers, String.class);
+        TypeWrapper<String> backward = new TypeWrapper<>(parse, nearIntegers, String.class);
+        String[] forwardResults = new String[numbers.length];
+        for (int i = 0; i < numbers.length; i++) forwardResults[i] = forward.convert(numbers[i]);
+        for (int i = numbers.length - 1; i >= 0; i--)
+            assertEquals("number " + numbers[i], forwardResults[i], backward.convert(numbers[i]));
+    }
+
+    public void testIndexedMultipleIsTakenWithoutCallingRule() {
+        toTypeCalls.set(0);
+        assertEquals("3", new TypeWrapper<>(parse, nearIntegers, String.class).convert(3.03));
+        int withoutIndex = toTypeCalls.get();
+
+        TypeWrapper<String> wrapper = new TypeWrapper<>(parse, nearIntegers, String.class);
+        assertEquals("3", wrapper.convert(3.04));
+        assertTrue(wrapper.representable.containsKey(300L));
+        toTypeCalls.set(0);
+        assertEquals("3", wrapper.convert(3.03));
+        assertEquals(withoutIndex - 1, toTypeCalls.get());
+    }
+
+    public void testOnlyMultiplesConvertedByToTypeRuleAreIndexed() {
+        TypeWrapper<String> wrapper = new TypeWrapper<>(parse, nearIntegers, String.class);
+        assertEquals(0.5, wrapper.convert("0.5").doubleValue());
+        assertTrue(wrapper.representable.isEmpty());
+
+        assertEquals("1", wrapper.convert(0.55)); // 0.5 isn't converted by the rule, so it isn't taken
+        assertEquals(1, wrapper.representable.size());
+        assertTrue(wrapper.representable.containsKey(100L));
+    }
+}
@@ -0,0 +1,129 @@
+package ru.mipt.optimization.supportive;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks {@link DoubleKeyCache} against the reference maps keyed by the boxed doubles
+ */
+public class DoubleKeyCacheTest extends TestCase {
+
+    public void testMatchesHashMapWithoutEviction() {
+        DoubleKeyCache<String> cache = new DoubleKeyCache<>(1000);
+        Map<Double, String> reference = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            double key = random.nextInt(500) * 0.1;
+            if (random.nextBoolean()) {
+                String value = "v" + i;
+                cache.put(key, value);
+                reference.put(key, value);
+            } else {
+                assertEquals(reference.get(key), cache.get(key));
+            }
+        }
+        assertEquals(reference.size(), cache.size());
+    }
+
+    public void testSegmentEvictsEarliestKeys() {
+        DoubleKeyCache<Integer> cache = new DoubleKeyCache<>(8, 1);
+        LinkedHashMap<Double, Integer> reference = new LinkedHashMap<Double, Integer>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Double, Integer> eldest) {
+                return size() > 8;
+            }
+        };
+        Random random = new Random(2);
+        for (int i = 0; i < 100000; i++) { // small table, so probe sequences often wrap around its end
+            double key = random.nextInt(40);
+            if (random.nextInt(3) > 0) {
+                cache.put(key, i);
+                reference.put(key, i); // updated key keeps its place in the insertion order
+            }
+            for (double k = 0; k < 40; k++) assertEquals("key " + k, reference.get(k), cache.get(k));
+        }
+    }
+
+    public void testRemovalShiftsKeysWrappedAroundTable() {
+        DoubleKeyCache<Integer> cache = new DoubleKeyCache<>(8, 1); // table of 16 slots
+        List<Double> lastSlotKeys = new ArrayList<>();
+        for (double key = 0; lastSlotKeys.size() < 9; key++)
+            if ((DoubleKeyCache.hash(Double.doubleToLongBits(key)) & 15) == 15) lastSlotKeys.add(key);
+
+        for (int i = 0; i < 8; i++) cache.put(lastSlotKeys.get(i), i); // occupy slots 15, 0, 1, ..., 6
+        cache.put(lastSlotKeys.get(8), 8); // evicts the key in the slot 15, the rest shift back over the end
+
+        assertNull(cache.get(lastSlotKeys.get(0)));
+        for (int i = 1; i < 9; i++) assertEquals(Integer.valueOf(i), cache.get(lastSlotKeys.get(i)));
+        assertEquals(8, cache.size());
+    }
+
+    public void testSizeIsBoundedByCapacity() {
+        for (int capacity: new int[] {1, 15, 16, 17, 100, 1000}) {
+            DoubleKeyCache<Double> cache = new DoubleKeyCache<>(capacity);
+            for (int i = 0; i < 10 * capacity + 100; i++) cache.put(i * 0.5, (double) i);
+            assertEquals("capacity " + capacity, capacity, cache.size());
+        }
+    }
+
+    public void testSignedZerosAreDifferentKeysAndNaNIsOne() {
+        DoubleKeyCache<String> cache = new DoubleKeyCache<>(16, 1); // one segment, so no key is evicted
+        cache.put(0.0, "plus");
+        cache.put(-0.0, "minus");
+        assertEquals("plus", cache.get(0.0));
+        assertEquals("minus", cache.get(-0.0));
+
+        cache.put(Double.NaN, "nan");
+        assertEquals("nan", cache.get(0.0 / 0.0));
+        assertEquals("nan", cache.get(Double.longBitsToDouble(0x7ff8000000000001L)));
+        assertEquals(3, cache.size());
+    }
+
+    public void testNullValueIsNotCached() {
+        DoubleKeyCache<String> cache = new DoubleKeyCache<>(4);
+        cache.put(1, null);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.size());
+    }
+
+    public void testConcurrentPutAndGet() throws Exception {
+        final DoubleKeyCache<Double> cache = new DoubleKeyCache<>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final long seed = t;
+                tasks.add(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        Random random = new Random(seed);
+                        for (int i = 0; i < 50000; i++) {
+                            double key = random.nextInt(300);
+                            if (random.nextBoolean()) cache.put(key, key * 2);
+                            Double value = cache.get(key);
+                            if (value != null && value != key * 2) return false;
+                        }
+                        return true;
+                    }
+                });
+            }
+            for (Boolean consistent: ParallelHelp.invokeAll(executor, tasks)) assertTrue(consistent);
+            assertTrue(cache.size() <= 100);
+            for (double key = 0; key < 300; key++) {
+                Double value = cache.get(key);
+                assertTrue(value == null || value == key * 2);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
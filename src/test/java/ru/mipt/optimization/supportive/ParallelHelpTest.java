@@ -0,0 +1,169 @@
+package ru.mipt.optimization.supportive;
+
+import junit.framework.TestCase;
+import ru.mipt.optimization.entity.inOut.Config;
+import ru.mipt.optimization.entity.optimizationProcedure.costFunction.UndeterminateCostFunc;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Checks evaluation of the I/O-bound cost function on the executor of {@link ParallelHelp#newEvaluationExecutor()}
+ * against the local fake simulator, answering every request after the fixed latency.
+ * Checks that the evaluations overlap rather than how fast they are, so the results don't depend on the machine.
+ */
+public class ParallelHelpTest extends TestCase {
+
+    private static final int LATENCY_MS = 20;
+    private static final int DIMENSION = 64;
+
+    private FakeSimulator simulator;
+
+    @Override
+    protected void setUp() throws IOException {
+        simulator = new FakeSimulator(LATENCY_MS);
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        simulator.close();
+    }
+
+    public void testGradientOfBlockingFunctionIsEvaluatedConcurrently() {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        Function<DoubleVector, Double> remoteRule = new Function<DoubleVector, Double>() {
+            @Override
+            public Double apply(DoubleVector point) {
+                int calls = inFlight.incrementAndGet();
+                peak.accumulateAndGet(calls, Math::max);
+                try {
+                    return simulator.call(point);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+        DoubleVector x = DoubleVector.twin(DIMENSION, 3);
+
+        DoubleVector sequential = new UndeterminateCostFunc(remoteRule, DIMENSION, new Config()).getGradient(x);
+        assertEquals(1, peak.get());
+
+        ExecutorService executor = ParallelHelp.newEvaluationExecutor();
+        try {
+            Config concurrentConfig = new Config();
+            concurrentConfig.setEvaluationExecutor(executor);
+            peak.set(0);
+            DoubleVector concurrent = new UndeterminateCostFunc(remoteRule, DIMENSION, concurrentConfig).getGradient(x);
+
+            assertEquals(sequential, concurrent);
+            assertTrue("at most " + peak.get() + " calls of the simulator have overlapped", peak.get() > 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testEvaluationExecutorRunsThousandsOfBlockingTasksAtOnce() throws Exception {
+        ExecutorService executor = ParallelHelp.newEvaluationExecutor();
+        try {
+            final int tasks = 1000;
+            final CountDownLatch started = new CountDownLatch(tasks);
+            List<Callable<Double>> calls = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                final DoubleVector point = DoubleVector.valueOf(i);
+                calls.add(new Callable<Double>() {
+                    @Override
+                    public Double call() throws InterruptedException {
+                        started.countDown();
+                        // every task blocks until all of them have started, so they can't run one after another
+                        if (!started.await(30, TimeUnit.SECONDS)) return null;
+                        return simulator.call(point);
+                    }
+                });
+            }
+            List<Double> results = ParallelHelp.invokeAll(executor, calls);
+
+            for (int i = 0; i < tasks; i++) assertEquals((double) i * i, results.get(i));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //---------------------------------------------inner----------------------------------------------------------------
+
+    // local simulator answering the squared norm of the point sent in one line after the fixed latency
+    private static class FakeSimulator {
+        private final ServerSocket server;
+        private final ExecutorService handlers = Executors.newCachedThreadPool();
+
+        FakeSimulator(final int latencyMs) throws IOException {
+            server = new ServerSocket(0, 2048, InetAddress.getLoopbackAddress());
+            handlers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    while (!server.isClosed()) {
+                        try {
+                            final Socket socket = server.accept();
+                            handlers.execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    answer(socket, latencyMs);
+                                }
+                            });
+                        } catch (IOException e) {
+                            return; // server is closed
+                        }
+                    }
+                }
+            });
+        }
+
+        Double call(DoubleVector point) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                StringBuilder request = new StringBuilder();
+                for (int i = 0; i < point.getDimension(); i++) request.append(point.get(i)).append(' ');
+                out.println(request.toString().trim());
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                return Double.valueOf(in.readLine());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() throws IOException {
+            server.close();
+            handlers.shutdownNow();
+        }
+
+        private static void answer(Socket socket, int latencyMs) {
+            try (Socket s = socket) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream()));
+                double res = 0;
+                for (String element: in.readLine().split(" ")) {
+                    double d = Double.parseDouble(element);
+                    res += d * d;
+                }
+                Thread.sleep(latencyMs);
+                new PrintWriter(s.getOutputStream(), true).println(res);
+            } catch (IOException | InterruptedException e) {
+                // client has gone or simulator is closed
+            }
+        }
+    }
+}
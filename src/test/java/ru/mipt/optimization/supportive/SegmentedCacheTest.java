@@ -0,0 +1,80 @@
+package ru.mipt.optimization.supportive;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks {@link SegmentedCache} against the reference map evicting the earliest keys
+ */
+public class SegmentedCacheTest extends TestCase {
+
+    public void testSegmentEvictsEarliestKeys() {
+        SegmentedCache<String, Integer> cache = new SegmentedCache<>(8, 1);
+        LinkedHashMap<String, Integer> reference = new LinkedHashMap<String, Integer>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > 8;
+            }
+        };
+        Random random = new Random(2);
+        for (int i = 0; i < 20000; i++) {
+            String key = "k" + random.nextInt(40);
+            if (random.nextInt(3) > 0) {
+                cache.put(key, i);
+                reference.put(key, i);
+            }
+            for (int k = 0; k < 40; k++) assertEquals("key " + k, reference.get("k" + k), cache.get("k" + k));
+        }
+    }
+
+    public void testSizeIsBoundedByCapacity() {
+        for (int capacity: new int[] {1, 15, 16, 17, 100, 1000}) {
+            SegmentedCache<Integer, Double> cache = new SegmentedCache<>(capacity);
+            for (int i = 0; i < 10 * capacity + 100; i++) cache.put(i, (double) i);
+            assertTrue("capacity " + capacity, cache.size() <= capacity);
+        }
+    }
+
+    public void testNullValueIsNotCached() {
+        SegmentedCache<String, String> cache = new SegmentedCache<>(4);
+        cache.put("a", null);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    public void testConcurrentPutAndGet() throws Exception {
+        final SegmentedCache<Integer, Integer> cache = new SegmentedCache<>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final long seed = t;
+                tasks.add(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        Random random = new Random(seed);
+                        for (int i = 0; i < 50000; i++) {
+                            int key = random.nextInt(300);
+                            if (random.nextBoolean()) cache.put(key, key * 2);
+                            Integer value = cache.get(key);
+                            if (value != null && value != key * 2) return false;
+                        }
+                        return true;
+                    }
+                });
+            }
+            for (Boolean consistent: ParallelHelp.invokeAll(executor, tasks)) assertTrue(consistent);
+            assertTrue(cache.size() <= 100);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}